@@ -2,8 +2,12 @@ package com.binpacker.app;
 
 import com.binpacker.lib.common.Utils;
 import com.binpacker.lib.ocl.JOCLHelper;
+import com.binpacker.lib.optimizer.BrkgaOptimizer;
 import com.binpacker.lib.optimizer.CPUOptimizer;
+import com.binpacker.lib.optimizer.EvaluationTier;
 import com.binpacker.lib.optimizer.Optimizer;
+import com.binpacker.lib.optimizer.OptimizerEvent;
+import com.binpacker.lib.optimizer.OptimizerListener;
 import com.binpacker.lib.solver.common.SolverProperties;
 import com.binpacker.lib.solver.cpusolvers.BestFit3D;
 import com.binpacker.lib.solver.cpusolvers.BestFitEMS;
@@ -18,11 +22,12 @@ import com.binpacker.lib.solver.parallelsolvers.cuda.CudaSolver;
 import com.binpacker.lib.solver.parallelsolvers.ParallelSolverInterface;
 import com.binpacker.lib.optimizer.CPUOptimizer;
 import com.binpacker.lib.optimizer.GPUOptimizer;
+import com.binpacker.lib.optimizer.IslandOptimizer;
+import com.binpacker.lib.optimizer.ParallelTemperingOptimizer;
 import com.binpacker.lib.ocl.OpenCLDevice;
 
 import javafx.application.Application;
 import javafx.application.Platform;
-import javafx.concurrent.Task;
 import javafx.scene.Group;
 import javafx.scene.PerspectiveCamera;
 import javafx.scene.Scene;
@@ -115,6 +120,15 @@ public class GuiApp extends Application {
 	private int generations = 200;
 	private int population = 30;
 	private int eliteCount = 3;
+	private int islands = 1;
+	private int localSearchMoves = 0;
+	// Anneal this many replicas instead of running the GA, 0 for the GA
+	private int temperingReplicas = 0;
+	private boolean randomKeys = false;
+	// Score children with First Fit first and pack only the best quarter
+	private boolean firstFitScreening = false;
+	// Wall-clock limit of a run in seconds, 0 for none
+	private int timeLimit = 0;
 	private boolean growingBin = false;
 
 	private String axis = "x";
@@ -337,10 +351,86 @@ public class GuiApp extends Application {
 			}
 		});
 
+		Label islandsLabel = new Label("Islands:");
+		javafx.scene.control.TextField islandsField = new javafx.scene.control.TextField(String.valueOf(islands));
+		islandsField.textProperty().addListener((observable, oldValue, newValue) -> {
+			if (!newValue.matches("\\d*")) {
+				islandsField.setText(oldValue);
+			} else {
+				try {
+					islands = Integer.parseInt(newValue);
+				} catch (NumberFormatException ex) {
+					islands = 1;
+				}
+			}
+		});
+
+		Label localSearchLabel = new Label("Local Search Moves:");
+		javafx.scene.control.TextField localSearchField = new javafx.scene.control.TextField(
+				String.valueOf(localSearchMoves));
+		localSearchField.textProperty().addListener((observable, oldValue, newValue) -> {
+			if (!newValue.matches("\\d*")) {
+				localSearchField.setText(oldValue);
+			} else {
+				try {
+					localSearchMoves = Integer.parseInt(newValue);
+				} catch (NumberFormatException ex) {
+					localSearchMoves = 0;
+				}
+			}
+		});
+
+		Label temperingLabel = new Label("Annealing Replicas:");
+		javafx.scene.control.TextField temperingField = new javafx.scene.control.TextField(
+				String.valueOf(temperingReplicas));
+		temperingField.textProperty().addListener((observable, oldValue, newValue) -> {
+			if (!newValue.matches("\\d*")) {
+				temperingField.setText(oldValue);
+			} else {
+				try {
+					temperingReplicas = Integer.parseInt(newValue);
+				} catch (NumberFormatException ex) {
+					temperingReplicas = 0;
+				}
+			}
+		});
+
+		javafx.scene.control.CheckBox randomKeysCheckBox = new javafx.scene.control.CheckBox("Random Keys (BRKGA)");
+		randomKeysCheckBox.setSelected(randomKeys);
+		randomKeysCheckBox.selectedProperty().addListener((observable, oldValue, newValue) -> {
+			randomKeys = newValue;
+		});
+
+		javafx.scene.control.CheckBox screeningCheckBox = new javafx.scene.control.CheckBox("Screen with First Fit");
+		screeningCheckBox.setSelected(firstFitScreening);
+		screeningCheckBox.selectedProperty().addListener((observable, oldValue, newValue) -> {
+			firstFitScreening = newValue;
+		});
+		// Annealing and BRKGA pack every child, there is nothing to screen
+		screeningCheckBox.disableProperty().bind(randomKeysCheckBox.selectedProperty()
+				.or(javafx.beans.binding.Bindings.createBooleanBinding(
+						() -> !temperingField.getText().matches("0*"), temperingField.textProperty())));
+
+		Label timeLimitLabel = new Label("Time Limit (s):");
+		javafx.scene.control.TextField timeLimitField = new javafx.scene.control.TextField(String.valueOf(timeLimit));
+		timeLimitField.textProperty().addListener((observable, oldValue, newValue) -> {
+			if (!newValue.matches("\\d*")) {
+				timeLimitField.setText(oldValue);
+			} else {
+				try {
+					timeLimit = Integer.parseInt(newValue);
+				} catch (NumberFormatException ex) {
+					timeLimit = 0;
+				}
+			}
+		});
+
 		controls.getChildren().add(new javafx.scene.control.Separator());
-		controls.getChildren().addAll(solverOptions, generationsLabel, generationsField, populationLabel,
+		controls.getChildren().addAll(solverOptions, generationsLabel, generationsField, timeLimitLabel,
+				timeLimitField, populationLabel,
 				populationField,
-				eliteCountLabel, eliteCountField);
+				eliteCountLabel, eliteCountField, islandsLabel, islandsField, localSearchLabel, localSearchField,
+				temperingLabel, temperingField, randomKeysCheckBox, screeningCheckBox);
 
 		statusLabel = new Label("Ready");
 		controls.getChildren().add(this.solverComboBox);
@@ -526,17 +616,15 @@ public class GuiApp extends Application {
 		return subScene;
 	}
 
-	private Task<Void> currentSolverTask;
+	private java.util.concurrent.CompletableFuture<List<List<com.binpacker.lib.common.Box>>> currentRun;
 
 	private void runSolver() {
 		statusLabel.setText("Solving...");
 
-		// Cancel previous task if running
-		if (currentSolverTask != null && currentSolverTask.isRunning()) {
-			currentSolverTask.cancel();
-			// We might want to wait a bit or ensure it's really stopped, but cancel()
-			// should set the flag
-			// and the loop below checks it.
+		// Cancel previous run if running, this also stops the solves of its
+		// running generation
+		if (currentRun != null && !currentRun.isDone()) {
+			currentRun.cancel(true);
 		}
 
 		isSolving = true;
@@ -610,7 +698,9 @@ public class GuiApp extends Application {
 				openCLDeviceComboBox.getValue(), binWeightField.getValue());
 
 		if (selectedSolver instanceof ParallelSolverInterface) {
-			GPUOptimizer gpuOptimizer = new GPUOptimizer();
+			Optimizer<ParallelSolverInterface> gpuOptimizer = createOptimizer(GPUOptimizer::new);
+			gpuOptimizer.setLocalSearch(localSearchMoves);
+			addScreening(gpuOptimizer, properties);
 			ParallelSolverInterface parallelSolver = (ParallelSolverInterface) selectedSolver;
 			parallelSolver.init(properties);
 			gpuOptimizer.initialize(parallelSolver, boxes, bin, growingBin, axis, rotationAxes, this.population,
@@ -618,22 +708,19 @@ public class GuiApp extends Application {
 					true);
 			optimizer = gpuOptimizer;
 		} else if (selectedSolver instanceof SolverInterface) {
-			CPUOptimizer cpuOptimizer = new CPUOptimizer();
+			Optimizer<java.util.function.Supplier<SolverInterface>> cpuOptimizer = createOptimizer(CPUOptimizer::new);
+			cpuOptimizer.setLocalSearch(localSearchMoves);
+			addScreening(cpuOptimizer, properties);
 			SolverInterface solver = (SolverInterface) selectedSolver;
 
 			boolean threaded = true;
 
+			// Called once per worker thread, the optimizer reuses the instances
 			Class<? extends SolverInterface> solverClass = solver.getClass();
 			java.util.function.Supplier<SolverInterface> factory = () -> {
 				try {
 					SolverInterface s = solverClass.getDeclaredConstructor().newInstance();
-					// Create a fresh bin copy to avoid shared mutable state
-					com.binpacker.lib.common.Bin freshBin = new com.binpacker.lib.common.Bin(
-							bin.index, bin.w, bin.h, bin.d);
-					freshBin.maxWeight = bin.maxWeight;
-					SolverProperties freshProps = new SolverProperties(freshBin, growingBin, axis, rotationAxes,
-							openCLDeviceComboBox.getValue(), binWeightField.getValue());
-					s.init(freshProps);
+					s.init(properties);
 					return s;
 				} catch (Exception ex) {
 					throw new RuntimeException("Failed to create solver instance", ex);
@@ -655,131 +742,114 @@ public class GuiApp extends Application {
 			boxColors.add(Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
 		}
 
-		int generations = this.generations;
+		java.time.Instant deadline = timeLimit > 0 ? java.time.Instant.now().plusSeconds(timeLimit) : null;
 
-		currentSolverTask = new Task<Void>() {
+		// The scene is only rebuilt when a better packing is found
+		optimizer.addListener(new OptimizerListener() {
 			@Override
-			protected Void call() throws Exception {
-				try {
-					for (int i = 0; i < generations; i++) {
-						if (isCancelled())
-							break;
-
-						result = optimizer.executeNextGeneration();
-						final double rawRate = optimizer.rate(result, bin) * 100;
-						final String rate = String.format("%.2f", rawRate);
-						final int generation = i + 1;
-
-						Platform.runLater(() -> {
-							if (isCancelled())
-								return; // Don't update UI if cancelled
-
-							statusLabel
-									.setText("Solving... Generation " + generation + " complete, " + rate + "% full");
-
-							// Check if results window is open; if not and solving, open it
-							if (resultsStage == null || !resultsStage.isShowing()) {
-								showResultsWindow();
-							}
-
-							// If we re-created the world/scene, we need a group to add boxes to.
-							// create3DScene clears 'world' and adds camera/axes.
-							// We need to add boxes to `resultWorld`.
-
-							// First, clear OLD boxes (but keep axes/camera).
-							// The axes/camera are the first 4 children (cameraGroup, xAxis, yAxis, zAxis).
-							// Let's remove everything after index 3 or just clear and redraw everything
-							// including axes/camera?
-							// Clearing and redrawing everything is safer but might flicker.
-							// The old code did `solverOutputGroup.getChildren().clear()`.
-							// We can create a dedicated group for boxes inside create3DScene and expose it?
-							// Or just assume `resultWorld` children from index 4 onwards are boxes.
-							// Let's safely iterate and remove boxes.
-							resultWorld.getChildren().removeIf(node -> node instanceof Box);
-							// Wait, axes are boxes too.
-							// We can mark axes with user data or just rebuild everything.
-							// Rebuilding everything is fast enough for 300 boxes.
-
-							// Actually, let's just make a sub-group for content.
-							// But create3DScene returns a SubScene and populates the world.
-							// Let's modify create3DScene or just hack it here.
-							// Easiest is to just re-add axes if we clear.
-
-							// Better approach:
-							// Inside create3DScene, make a permanent group for 'static' stuff (camera,
-							// axes)
-							// and a group for 'dynamic' stuff (boxes).
-							// Since I can't easily change the signature of create3DScene in this replace
-							// block without changing other things,
-							// I will just rely on the fact that I know what create3DScene does.
-
-							// BUT, I can just clear simply:
-							// resultWorld.getChildren().clear();
-							// And then add camera/axes back.
-							// Or, verify what create3DScene does. It clears world.
-							// So if I call create3DScene again? No, that creates a NEW SubScene. I don't
-							// want a new SubScene every frame.
-
-							// Fix: In create3DScene, I'll add a specific Group for boxes.
-							// I'll make `private Group boxGroup;` field.
-							// In create3DScene: `boxGroup = new Group();
-							// world.getChildren().add(boxGroup);`
-							// Here: `boxGroup.getChildren().clear(); ... add results to boxGroup`
-						});
-
-						// We need to wait for Platform.runLater to define boxGroup if we go that route.
-						// Instead, let's just use a dedicated group that we create/manage here or
-						// finding by ID.
-
-						Platform.runLater(() -> {
-							// We can't easily use a dedicated field without adding it to the class.
-							// Let's inspect resultWorld children.
-							// If we just clear resultWorld and re-add camera/axes + boxes, it works.
-							// But we lose camera position if we recreate camera.
-							// We MUST preserve camera.
-
-							// Let's assume resultWorld has [CameraGroup, Axis1, Axis2, Axis3, ...Boxes...]
-							// We can remove from index 4 to end.
-							if (resultWorld != null && resultWorld.getChildren().size() > 4) {
-								resultWorld.getChildren().remove(4, resultWorld.getChildren().size());
-							}
-
-							int binOffset = -50;
-							for (List<com.binpacker.lib.common.Box> binBoxes : result) {
-								for (com.binpacker.lib.common.Box spec : binBoxes) {
-									Color boxColor = boxColors.get(spec.id % boxColors.size());
-									PhongMaterial boxMaterial = new PhongMaterial(boxColor);
-									Box box = new Box(spec.size.x, spec.size.y, spec.size.z);
-									box.setMaterial(boxMaterial);
-
-									box.setTranslateX(spec.position.x + spec.size.x / 2 + binOffset);
-									box.setTranslateY(spec.position.y + spec.size.y / 2);
-									box.setTranslateZ(spec.position.z + spec.size.z / 2);
-
-									resultWorld.getChildren().add(box);
-								}
-
-								// Draw bin outline
-								Box binBox = new Box(bin.w, bin.h, bin.d);
-								binBox.setDrawMode(DrawMode.LINE);
-								binBox.setMaterial(new PhongMaterial(Color.BLACK));
-								binBox.setTranslateX(bin.w / 2 + binOffset);
-								binBox.setTranslateY(bin.h / 2);
-								binBox.setTranslateZ(bin.d / 2);
-								resultWorld.getChildren().add(binBox);
-
-								binOffset += 40;
-							}
-						});
-					}
-				} finally {
-					isSolving = false;
-					optimizer.release();
-				}
-				return null;
+			public void generationFinished(OptimizerEvent.GenerationFinished event) {
+				final String rate = String.format("%.2f", event.bestScore * 100);
+				final String gap = Double.isNaN(event.gap) ? "" : String.format(", gap %.1f%%", event.gap * 100);
+				Platform.runLater(() -> statusLabel
+						.setText("Solving... Generation " + event.generation + " complete, " + rate + "% full" + gap));
+			}
+
+			@Override
+			public void newBest(OptimizerEvent.NewBest event) {
+				result = event.packing;
+				Platform.runLater(() -> showPacking(event.packing, boxColors, bin));
+			}
+
+			@Override
+			public void finished(OptimizerEvent.Finished event) {
+				isSolving = false;
+				optimizer.release();
 			}
-		};
-		new Thread(currentSolverTask).start();
+		});
+
+		java.util.concurrent.CompletableFuture<List<List<com.binpacker.lib.common.Box>>> run = optimizer
+				.optimize(deadline, generations);
+		run.whenComplete((best, error) -> {
+			if (error != null && !run.isCancelled()) {
+				System.err.println("Solving failed: " + error);
+				Platform.runLater(() -> statusLabel.setText("Solving failed"));
+			}
+		});
+		currentRun = run;
+	}
+
+	private void showPacking(List<List<com.binpacker.lib.common.Box>> packing, List<Color> boxColors,
+			com.binpacker.lib.common.Bin bin) {
+		// Check if results window is open; if not and solving, open it
+		if (resultsStage == null || !resultsStage.isShowing()) {
+			showResultsWindow();
+		}
+
+		// resultWorld holds [CameraGroup, Axis1, Axis2, Axis3, ...Boxes...], keep
+		// the camera and axes
+		if (resultWorld != null && resultWorld.getChildren().size() > 4) {
+			resultWorld.getChildren().remove(4, resultWorld.getChildren().size());
+		}
+
+		int binOffset = -50;
+		for (List<com.binpacker.lib.common.Box> binBoxes : packing) {
+			for (com.binpacker.lib.common.Box spec : binBoxes) {
+				Color boxColor = boxColors.get(spec.id % boxColors.size());
+				PhongMaterial boxMaterial = new PhongMaterial(boxColor);
+				Box box = new Box(spec.size.x, spec.size.y, spec.size.z);
+				box.setMaterial(boxMaterial);
+
+				box.setTranslateX(spec.position.x + spec.size.x / 2 + binOffset);
+				box.setTranslateY(spec.position.y + spec.size.y / 2);
+				box.setTranslateZ(spec.position.z + spec.size.z / 2);
+
+				resultWorld.getChildren().add(box);
+			}
+
+			// Draw bin outline
+			Box binBox = new Box(bin.w, bin.h, bin.d);
+			binBox.setDrawMode(DrawMode.LINE);
+			binBox.setMaterial(new PhongMaterial(Color.BLACK));
+			binBox.setTranslateX(bin.w / 2 + binOffset);
+			binBox.setTranslateY(bin.h / 2);
+			binBox.setTranslateZ(bin.d / 2);
+			resultWorld.getChildren().add(binBox);
+
+			binOffset += 40;
+		}
+	}
+
+	/**
+	 * Has children pass a first-fit packing before the full evaluation, if
+	 * enabled in the GA options and the optimizer screens children.
+	 */
+	private void addScreening(Optimizer<?> optimizer, SolverProperties properties) {
+		if (!firstFitScreening || !optimizer.supportsEvaluationTiers()) {
+			return;
+		}
+		optimizer.addEvaluationTier(new EvaluationTier<java.util.function.Supplier<SolverInterface>>(CPUOptimizer::new,
+				() -> {
+					FirstFit3D solver = new FirstFit3D();
+					solver.init(properties);
+					return solver;
+				}, 0.25));
+	}
+
+	/**
+	 * The optimizer selected in the GA options, evaluating with optimizers from
+	 * the given factory.
+	 */
+	private <S> Optimizer<S> createOptimizer(java.util.function.Supplier<? extends Optimizer<S>> factory) {
+		if (temperingReplicas > 0) {
+			return new ParallelTemperingOptimizer<>(factory, temperingReplicas);
+		}
+		if (randomKeys) {
+			return new BrkgaOptimizer<>(factory);
+		}
+		if (islands > 1) {
+			return new IslandOptimizer<>(factory, islands);
+		}
+		return factory.get();
 	}
 
 	private void exportSolution() {
@@ -39,6 +39,19 @@ public class Bin {
 		this(0, binTemplate);
 	}
 
+	/**
+	 * Copy of this bin with its own box and free space lists. The boxes and
+	 * spaces themselves are shared, placement never modifies them in place.
+	 */
+	public Bin copy() {
+		Bin copy = new Bin(index, w, h, d, maxWeight);
+		copy.boxes = new ArrayList<>(boxes);
+		copy.freeSpaces = new ArrayList<>(freeSpaces);
+		copy.utilCounter = utilCounter;
+		copy.weight = weight;
+		return copy;
+	}
+
 	public double getVolume() {
 		return w * h * d;
 	}
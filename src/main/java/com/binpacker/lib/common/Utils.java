@@ -1,5 +1,6 @@
 package com.binpacker.lib.common;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public interface Utils {
@@ -15,4 +16,38 @@ public interface Utils {
 		}
 		return csv;
 	}
+
+	/**
+	 * Parses a solution written by {@link #exportCsv(List)} back into bins of
+	 * placed boxes. Weights are not part of the export and are left at 0.
+	 */
+	static List<List<Box>> importCsv(String csv) {
+		List<List<Box>> bins = new ArrayList<>();
+		for (String line : csv.split("\\R")) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#") || line.startsWith("Bin"))
+				continue;
+
+			String[] parts = line.split(",");
+			if (parts.length < 8) {
+				System.err.println("Skipping invalid line: " + line);
+				continue;
+			}
+			try {
+				int binIndex = Integer.parseInt(parts[0].trim());
+				int id = Integer.parseInt(parts[1].trim());
+				Point3f position = new Point3f(Float.parseFloat(parts[2].trim()), Float.parseFloat(parts[3].trim()),
+						Float.parseFloat(parts[4].trim()));
+				Point3f size = new Point3f(Float.parseFloat(parts[5].trim()), Float.parseFloat(parts[6].trim()),
+						Float.parseFloat(parts[7].trim()));
+				while (bins.size() <= binIndex) {
+					bins.add(new ArrayList<>());
+				}
+				bins.get(binIndex).add(new Box(id, position, size));
+			} catch (NumberFormatException e) {
+				System.err.println("Skipping invalid line: " + line);
+			}
+		}
+		return bins;
+	}
 }
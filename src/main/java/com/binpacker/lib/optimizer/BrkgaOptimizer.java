@@ -0,0 +1,256 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+
+/**
+ * Biased random-key GA. Each individual is a vector of keys in [0, 1), one per
+ * box, and packs the boxes in ascending key order. Children take each key from
+ * an elite parent with probability eliteBias and from a non-elite parent
+ * otherwise, and a share of each generation is fresh random keys.
+ *
+ * Every child is valid, so crossover is a single pass over flat arrays with no
+ * repair. The keys of the whole population live in one float array, individual
+ * i at [i * boxes, (i + 1) * boxes).
+ *
+ * Orders are evaluated by a backend optimizer, {@link CPUOptimizer} or
+ * {@link GPUOptimizer}, through the fitness cache of this optimizer.
+ */
+public class BrkgaOptimizer<S> extends Optimizer<S> {
+
+	private static final double DEFAULT_MUTANT_FRACTION = 0.15;
+	private static final double DEFAULT_ELITE_BIAS = 0.7;
+
+	private final Supplier<? extends Optimizer<S>> backendFactory;
+	private double mutantFraction = DEFAULT_MUTANT_FRACTION;
+	private double eliteBias = DEFAULT_ELITE_BIAS;
+
+	private Optimizer<S> backend;
+	private int size;
+	private float[] keys;
+
+	private Solution best;
+	private Solution packedBest;
+	private List<List<Box>> packedBestSolution;
+
+	public BrkgaOptimizer(Supplier<? extends Optimizer<S>> backendFactory) {
+		this.backendFactory = backendFactory;
+	}
+
+	/**
+	 * Share of each generation made of random keys.
+	 */
+	public void setMutantFraction(double mutantFraction) {
+		this.mutantFraction = mutantFraction;
+	}
+
+	/**
+	 * Probability that a child takes a key from its elite parent.
+	 */
+	public void setEliteBias(double eliteBias) {
+		this.eliteBias = eliteBias;
+	}
+
+	@Override
+	public void initialize(S solverSource, List<Box> boxes, Bin bin, boolean growingBin, String growAxis,
+			List<Integer> rotationAxes, int populationSize, int eliteCount, boolean threaded) {
+		release();
+		backend = backendFactory.get();
+		backend.setSeed(seed);
+		backend.setSolutionStore(solutionStore);
+		backend.setHybrid(hybridVolume, hybridSide);
+		backend.stopWith(this::isStopRequested);
+		backend.initialize(solverSource, boxes, bin, growingBin, growAxis, rotationAxes, populationSize, eliteCount,
+				threaded);
+		best = null;
+		packedBest = null;
+		packedBestSolution = null;
+		super.initialize(solverSource, boxes, bin, growingBin, growAxis, rotationAxes, populationSize, eliteCount,
+				threaded);
+	}
+
+	@Override
+	public void generateInitialPopulation() {
+		// Encode the GA's initial orders, which start with the sorted ones
+		List<int[]> orders = backend.boxOrders;
+		size = boxes.size();
+		keys = new float[populationSize * size];
+		for (int i = 0; i < populationSize; i++) {
+			int[] order = orders.get(i % orders.size());
+			for (int k = 0; k < size; k++) {
+				keys[i * size + order[k]] = (k + 0.5f) / size;
+			}
+		}
+		decodePopulation();
+	}
+
+	@Override
+	public List<List<Box>> executeNextGeneration() {
+		// 1. Evaluate, unevaluable orders rank last
+		List<Solution> evaluated = evaluateAligned(boxOrders);
+		Integer[] ranking = new Integer[populationSize];
+		double[] scores = new double[populationSize];
+		for (int i = 0; i < populationSize; i++) {
+			ranking[i] = i;
+			Solution solution = evaluated.get(i);
+			scores[i] = solution != null ? solution.score
+					: growingBin ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+		}
+		Arrays.sort(ranking, (a, b) -> isBetter(scores[a], scores[b]) ? -1 : isBetter(scores[b], scores[a]) ? 1 : 0);
+
+		Solution bestOfGen = evaluated.get(ranking[0]);
+		if (bestOfGen != null && (best == null || isBetter(bestOfGen.score, best.score))) {
+			best = bestOfGen;
+		}
+		if (best == null) {
+			throw new RuntimeException("No order of the population could be evaluated");
+		}
+
+		int elites = Math.max(1, Math.min(getEliteCount(), populationSize - 1));
+		int mutants = Math.min((int) (populationSize * mutantFraction), populationSize - elites);
+		cutoff = elites == getEliteCount() ? scores[ranking[elites - 1]] : Double.NaN;
+		List<Solution> eliteSolutions = new ArrayList<>();
+		for (int i = 0; i < elites; i++) {
+			if (evaluated.get(ranking[i]) != null) {
+				eliteSolutions.add(evaluated.get(ranking[i]));
+			}
+		}
+		retainElites(eliteSolutions);
+
+		// 2. Breed: elites as they are, random mutants, then biased crossovers
+		float[] next = new float[keys.length];
+		for (int i = 0; i < elites; i++) {
+			System.arraycopy(keys, ranking[i] * size, next, i * size, size);
+		}
+		long generationSeed = mix(seed + 0x9E3779B97F4A7C15L * (generation + 1));
+		IntStream children = IntStream.range(elites, populationSize);
+		if (threaded) {
+			children = children.parallel();
+		}
+		children.forEach(i -> {
+			SplittableRandom random = new SplittableRandom(mix(generationSeed + i));
+			int offset = i * size;
+			if (i < elites + mutants) {
+				for (int k = 0; k < size; k++) {
+					next[offset + k] = (float) random.nextDouble();
+				}
+				return;
+			}
+			int elite = ranking[random.nextInt(elites)] * size;
+			int other = ranking[elites + random.nextInt(populationSize - elites)] * size;
+			for (int k = 0; k < size; k++) {
+				next[offset + k] = random.nextDouble() < eliteBias ? keys[elite + k] : keys[other + k];
+			}
+		});
+		keys = next;
+		generation++;
+		decodePopulation();
+
+		// Packing the best again is only needed when it changed
+		if (best != packedBest) {
+			packedBestSolution = finalizeBestSolution(best);
+			packedBest = best;
+		}
+		return packedBestSolution;
+	}
+
+	private void decodePopulation() {
+		int[][] orders = new int[populationSize][];
+		IntStream individuals = IntStream.range(0, populationSize);
+		if (threaded) {
+			individuals = individuals.parallel();
+		}
+		individuals.forEach(i -> orders[i] = decode(keys, i * size, size));
+		boxOrders = new ArrayList<>(List.of(orders));
+	}
+
+	/**
+	 * Box indices in ascending order of their keys, ties broken by index.
+	 */
+	static int[] decode(float[] keys, int offset, int size) {
+		// Keys are non-negative, so their bits sort like the floats. Sorting key
+		// and index packed into one long avoids boxing
+		long[] packed = new long[size];
+		for (int k = 0; k < size; k++) {
+			packed[k] = ((long) Float.floatToIntBits(keys[offset + k]) << 32) | k;
+		}
+		Arrays.sort(packed);
+		int[] order = new int[size];
+		for (int k = 0; k < size; k++) {
+			order[k] = (int) packed[k];
+		}
+		return order;
+	}
+
+	@Override
+	public boolean supportsEvaluationTiers() {
+		// Every child of a generation is packed, none are screened out
+		return false;
+	}
+
+	@Override
+	protected void writeState(StateBuffer out) {
+		out.putLong(seed);
+		out.putInt(generation);
+		out.putDouble(cutoff);
+		out.putInt(populationSize);
+		out.putFloats(keys);
+		fitnessCache.write(out);
+		out.putBoolean(best != null);
+		if (best != null) {
+			out.putInts(best.order);
+			out.putDouble(best.score);
+		}
+	}
+
+	@Override
+	protected void readState(StateBuffer in) {
+		seed = in.getLong();
+		generation = in.getInt();
+		cutoff = in.getDouble();
+		populationSize = in.getInt();
+		keys = in.getFloats(populationSize * size);
+		fitnessCache.read(in);
+		best = in.getBoolean() ? new Solution(in.getInts(size), in.getDouble(), null) : null;
+		packedBest = null;
+		packedBestSolution = null;
+		decodePopulation();
+	}
+
+	@Override
+	protected List<Solution> evaluatePopulation(List<int[]> population) {
+		// Children cannot join the elites unless they beat the worst of them
+		backend.cutoff = cutoff;
+		return backend.evaluatePopulation(population);
+	}
+
+	@Override
+	protected List<List<Box>> finalizeBestSolution(Solution bestSolution) {
+		return backend.finalizeBestSolution(bestSolution);
+	}
+
+	@Override
+	protected void retainElites(List<Solution> elites) {
+		backend.retainElites(elites);
+	}
+
+	@Override
+	public double rate(List<List<Box>> solution, Bin bin) {
+		return backend.rate(solution, bin);
+	}
+
+	@Override
+	public void release() {
+		if (backend != null) {
+			backend.release();
+			backend = null;
+		}
+	}
+}
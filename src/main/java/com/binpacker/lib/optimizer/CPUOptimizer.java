@@ -1,96 +1,283 @@
 package com.binpacker.lib.optimizer;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ForkJoinPool;
 
 import java.util.function.Supplier;
 
 import com.binpacker.lib.common.Bin;
 import com.binpacker.lib.common.Box;
+import com.binpacker.lib.solver.common.PackingState;
+import com.binpacker.lib.solver.common.SolveOptions;
+import com.binpacker.lib.solver.cpusolvers.ResumableSolver;
 import com.binpacker.lib.solver.cpusolvers.SolverInterface;
 
 public class CPUOptimizer extends Optimizer<Supplier<SolverInterface>> {
 
+	// Long-lived pool for threaded evaluation, created on first use
+	private Executor executor;
+	private boolean ownsExecutor;
+
+	private SolverPool solverPool;
+
+	// Checkpoints taken along each order, for resuming children from their
+	// parent's packing state. Only used with a ResumableSolver
+	private static final int CHECKPOINTS_PER_ORDER = 16;
+	private PrefixCache prefixCache;
+	private int checkpointInterval;
+
+	// Score-only evaluation: solutions keep their order, score and stats, and
+	// only each thread's best packing of the generation is kept, in its slot
+	private boolean scoreOnly;
+	private final List<BestSlot> slots = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<BestSlot> slot = ThreadLocal.withInitial(() -> {
+		BestSlot created = new BestSlot();
+		slots.add(created);
+		return created;
+	});
+	private volatile int epoch;
+
+	// Share of each order that is packed, below 1 only for screening tiers
+	private double prefixFraction = 1;
+
+	private static final class BestSlot {
+		int epoch;
+		volatile Solution best;
+	}
+
 	@Override
-	protected List<Solution> evaluatePopulation(List<List<Integer>> population) {
-		List<Solution> scored = new ArrayList<>();
+	public void initialize(Supplier<SolverInterface> solverSource, List<Box> boxes, Bin bin, boolean growingBin,
+			String growAxis, List<Integer> rotationAxes, int populationSize, int eliteCount, boolean threaded) {
+		if (solverPool != null) {
+			solverPool.release();
+		}
+		solverPool = new SolverPool(solverSource);
+		prefixCache = new PrefixCache(eliteCount);
+		checkpointInterval = Math.max(1, boxes.size() / CHECKPOINTS_PER_ORDER);
+		super.initialize(solverSource, boxes, bin, growingBin, growAxis, rotationAxes, populationSize, eliteCount,
+				threaded);
+	}
 
-		if (this.threaded) {
-			int numThreads = Runtime.getRuntime().availableProcessors();
-			ExecutorService executor = Executors.newFixedThreadPool(numThreads);
-			List<Future<List<Solution>>> futures = new ArrayList<>();
+	/**
+	 * Evaluate orders on the given executor instead of a pool owned by this
+	 * optimizer. The executor is not shut down by {@link #release()}.
+	 */
+	public void setExecutor(Executor executor) {
+		releaseExecutor();
+		this.executor = executor;
+		this.ownsExecutor = false;
+	}
 
-			List<List<List<Integer>>> partitions = new ArrayList<>();
-			int partitionSize = (int) Math.ceil((double) population.size() / numThreads);
-			if (partitionSize == 0)
-				partitionSize = 1;
+	private Executor getExecutor() {
+		if (executor == null) {
+			executor = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+			ownsExecutor = true;
+		}
+		return executor;
+	}
 
-			for (int i = 0; i < population.size(); i += partitionSize) {
-				partitions.add(population.subList(i, Math.min(i + partitionSize, population.size())));
-			}
+	/**
+	 * Keep only the order, score and stats of each evaluated order instead of
+	 * its packing, so a generation needs memory for its orders rather than for
+	 * all their boxes. The best packing is taken from the thread that found it,
+	 * or packed again. Checkpoints are only kept for orders that beat the worst
+	 * elite, as only they can become elites.
+	 */
+	public void setScoreOnly(boolean scoreOnly) {
+		this.scoreOnly = scoreOnly;
+	}
 
-			for (List<List<Integer>> chunk : partitions) {
-				futures.add(executor.submit(() -> {
-					SolverInterface localSolver = solverSource.get();
-					List<Solution> chunkResults = new ArrayList<>();
-					try {
-						for (List<Integer> order : chunk) {
-							List<Box> orderedBoxes = applyOrder(order);
-							List<List<Box>> solved = localSolver.solve(orderedBoxes);
-							double score = rate(solved, this.bin);
-							chunkResults.add(new Solution(order, score, solved));
-						}
-					} finally {
-						localSolver.release();
-					}
-					return chunkResults;
-				}));
-			}
+	/**
+	 * Pack only the first fraction of each order, a cheap and coarse score for
+	 * an {@link EvaluationTier}. Packings are of the prefix only.
+	 */
+	public void setPrefixFraction(double prefixFraction) {
+		this.prefixFraction = Math.min(1, Math.max(0, prefixFraction));
+	}
 
-			for (Future<List<Solution>> future : futures) {
-				try {
-					scored.addAll(future.get());
-				} catch (InterruptedException | ExecutionException e) {
-					Thread.currentThread().interrupt();
-					System.err.println("Error processing task: " + e.getMessage());
-				}
+	@Override
+	protected List<Solution> evaluatePopulation(List<int[]> population) {
+		epoch++;
+		List<Solution> scored = new ArrayList<>();
+
+		if (this.threaded) {
+			// One task per order, so idle workers can steal the remaining ones
+			List<CompletableFuture<Solution>> futures = new ArrayList<>(population.size());
+			for (int[] order : population) {
+				futures.add(CompletableFuture.supplyAsync(() -> evaluate(order, cutoff), getExecutor()));
 			}
 
-			executor.shutdown();
-			try {
-				if (!executor.awaitTermination(3, TimeUnit.MINUTES)) {
-					executor.shutdownNow();
+			for (CompletableFuture<Solution> future : futures) {
+				try {
+					scored.add(future.join());
+				} catch (CompletionException e) {
+					System.err.println("Error processing task: " + e.getCause());
 				}
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				executor.shutdownNow();
 			}
 		} else {
 			// Non-threaded
-			SolverInterface localSolver = solverSource.get();
-			try {
-				for (List<Integer> order : population) {
-					List<Box> orderedBoxes = applyOrder(order);
-					List<List<Box>> solved = localSolver.solve(orderedBoxes);
-					double score = rate(solved, this.bin);
-					scored.add(new Solution(order, score, solved));
-				}
-			} finally {
-				localSolver.release();
+			for (int[] order : population) {
+				scored.add(evaluate(order, cutoff));
 			}
 		}
 
 		return scored;
 	}
 
+	/**
+	 * Packs one order with the calling thread's solver. If the order cannot
+	 * score better than cutoff, it may stop early and get the worst possible
+	 * score.
+	 */
+	protected Solution evaluate(int[] order, double cutoff) {
+		long start = System.nanoTime();
+		Solution solution = pack(order, cutoff);
+		solution.nanos = System.nanoTime() - start;
+		// Children only resume from elites
+		if (!Double.isNaN(cutoff) && !isBetter(solution.score, cutoff)) {
+			solution.checkpoints = null;
+		}
+		if (!scoreOnly || solution.solved == null) {
+			return solution;
+		}
+
+		BestSlot own = slot.get();
+		if (own.epoch != epoch || own.best == null || isBetter(solution.score, own.best.score)) {
+			own.epoch = epoch;
+			own.best = solution;
+		}
+		Solution compact = new Solution(order, solution.score, null, solution.checkpoints);
+		compact.placed = solution.placed;
+		compact.nanos = solution.nanos;
+		compact.bins = solution.bins;
+		return compact;
+	}
+
+	private Solution pack(int[] order, double cutoff) {
+		if (isStopRequested()) {
+			return Solution.aborted(order, growingBin);
+		}
+		SolverInterface solver = solverPool.get();
+		List<Box> orderedBoxes = applyOrder(order);
+		if (prefixFraction < 1) {
+			int length = (int) Math.ceil(order.length * prefixFraction);
+			orderedBoxes = orderedBoxes.subList(0, Math.min(order.length, Math.max(1, length)));
+		}
+		if (solver instanceof ResumableSolver) {
+			SolveOptions options = new SolveOptions();
+			options.checkpointInterval = checkpointInterval;
+			options.cutoff = cutoff;
+			options.cancellation = this::isStopRequested;
+			List<PackingState> prefix = prefixCache.lookup(order);
+			if (!prefix.isEmpty()) {
+				// The parent's earlier checkpoints are valid for this order too
+				options.checkpoints.addAll(prefix);
+				options.resumeFrom = prefix.get(prefix.size() - 1);
+			}
+			List<List<Box>> solved = ((ResumableSolver) solver).solve(orderedBoxes, options);
+			Solution solution;
+			if (options.aborted) {
+				// Cannot beat the worst elite or was cancelled, no need for the exact
+				// score
+				solution = Solution.aborted(order, growingBin);
+			} else {
+				solution = new Solution(order, rate(solved, this.bin), solved, options.checkpoints);
+				solution.bins = solved.size();
+			}
+			int packed = 0;
+			for (List<Box> packedBin : solved) {
+				packed += packedBin.size();
+			}
+			solution.placed = packed - (options.resumeFrom != null ? options.resumeFrom.placed : 0);
+			return solution;
+		}
+		List<List<Box>> solved = solver.solve(orderedBoxes);
+		double score = rate(solved, this.bin);
+		Solution solution = new Solution(order, score, solved);
+		solution.placed = orderedBoxes.size();
+		solution.bins = solved.size();
+		return solution;
+	}
+
+	@Override
+	protected void retainElites(List<Solution> elites) {
+		prefixCache.retain(elites);
+	}
+
+	@Override
+	protected void writeState(StateBuffer out) {
+		super.writeState(out);
+		// Which elites children can resume from, their checkpoints are packed
+		// again on loading
+		int elites = Math.min(getEliteCount(), boxOrders.size());
+		for (int i = 0; i < elites; i++) {
+			out.putBoolean(prefixCache.contains(boxOrders.get(i)));
+		}
+	}
+
+	@Override
+	protected void readState(StateBuffer in) {
+		super.readState(in);
+		int elites = Math.min(getEliteCount(), boxOrders.size());
+		List<int[]> resumable = new ArrayList<>();
+		for (int i = 0; i < elites; i++) {
+			if (in.getBoolean()) {
+				resumable.add(boxOrders.get(i));
+			}
+		}
+		// Without a cutoff, so every checkpoint is taken
+		double savedCutoff = cutoff;
+		cutoff = Double.NaN;
+		try {
+			prefixCache.retain(evaluatePopulation(resumable));
+		} finally {
+			cutoff = savedCutoff;
+		}
+	}
+
+	@Override
+	public void release() {
+		super.release();
+		releaseExecutor();
+		if (solverPool != null) {
+			solverPool.release();
+		}
+		if (prefixCache != null) {
+			prefixCache.clear();
+		}
+		for (BestSlot kept : slots) {
+			kept.best = null;
+		}
+	}
+
+	private void releaseExecutor() {
+		if (ownsExecutor && executor instanceof ExecutorService) {
+			((ExecutorService) executor).shutdown();
+		}
+		executor = null;
+		ownsExecutor = false;
+	}
+
 	@Override
 	protected List<List<Box>> finalizeBestSolution(Solution bestSolution) {
+		if (bestSolution.solved == null) {
+			// Kept by the thread that evaluated it in score-only mode
+			for (BestSlot kept : slots) {
+				Solution best = kept.best;
+				if (best != null && Arrays.equals(best.order, bestSolution.order)) {
+					return best.solved;
+				}
+			}
+			// Score came from the fitness cache, pack the order again
+			return solverPool.get().solve(applyOrder(bestSolution.order));
+		}
 		return bestSolution.solved;
 	}
 
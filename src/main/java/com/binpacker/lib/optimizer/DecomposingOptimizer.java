@@ -0,0 +1,234 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.common.Space;
+import com.binpacker.lib.solver.common.PlacementUtils;
+import com.binpacker.lib.solver.cpusolvers.SolverInterface;
+
+/**
+ * Splits a large fixed-bin instance into groups of a few bins worth of boxes
+ * and optimizes each group with its own {@link CPUOptimizer} on a shared
+ * thread pool. The boxes of the last, partly filled bin of every group are
+ * then grouped and packed again, so the groups do not each leave a mostly
+ * empty bin behind.
+ *
+ * Only the groups currently being optimized hold GA state, so memory is bounded
+ * by the group size times the pool size rather than by the instance size.
+ *
+ * Boxes that fit no empty bin are left out of the groups and the result, see
+ * {@link #getRejected}.
+ */
+public class DecomposingOptimizer {
+
+	private final Supplier<SolverInterface> solverSource;
+	private final Bin bin;
+	private final float weightLimit;
+	private final List<Integer> rotationAxes;
+	private final int binsPerGroup;
+	private final int populationSize;
+	private final int eliteCount;
+	private final int generations;
+
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+
+	private List<Box> rejected = List.of();
+
+	public DecomposingOptimizer(Supplier<SolverInterface> solverSource, Bin bin, float weightLimit,
+			List<Integer> rotationAxes, int binsPerGroup, int populationSize, int eliteCount, int generations) {
+		this(solverSource, bin, weightLimit, rotationAxes, binsPerGroup, populationSize, eliteCount, generations,
+				Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()), true);
+	}
+
+	public DecomposingOptimizer(Supplier<SolverInterface> solverSource, Bin bin, float weightLimit,
+			List<Integer> rotationAxes, int binsPerGroup, int populationSize, int eliteCount, int generations,
+			ExecutorService executor) {
+		this(solverSource, bin, weightLimit, rotationAxes, binsPerGroup, populationSize, eliteCount, generations,
+				executor, false);
+	}
+
+	private DecomposingOptimizer(Supplier<SolverInterface> solverSource, Bin bin, float weightLimit,
+			List<Integer> rotationAxes, int binsPerGroup, int populationSize, int eliteCount, int generations,
+			ExecutorService executor, boolean ownsExecutor) {
+		if (generations < 1) {
+			throw new IllegalArgumentException("Generations must be at least 1: " + generations);
+		}
+		this.solverSource = solverSource;
+		this.bin = bin;
+		this.weightLimit = weightLimit;
+		this.rotationAxes = rotationAxes;
+		this.binsPerGroup = Math.max(1, binsPerGroup);
+		this.populationSize = populationSize;
+		this.eliteCount = eliteCount;
+		this.generations = generations;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	public List<List<Box>> optimize(List<Box> boxes) {
+		// A group holding a box no bin takes could not be packed at all
+		List<Box> fitting = new ArrayList<>();
+		List<Box> oversized = new ArrayList<>();
+		for (Box box : boxes) {
+			if (fitsEmptyBin(box)) {
+				fitting.add(box);
+			} else {
+				oversized.add(box);
+			}
+		}
+		rejected = Collections.unmodifiableList(oversized);
+
+		List<List<Box>> result = new ArrayList<>();
+		List<List<Box>> partialBins = optimizeGroups(partition(fitting), result);
+
+		// Re-home the boxes of partly filled bins for as long as that saves bins
+		while (partialBins.size() > 1) {
+			List<List<Box>> regrouped = partition(unplaced(partialBins));
+			if (regrouped.size() >= partialBins.size()) {
+				break;
+			}
+			List<List<Box>> rehomedFull = new ArrayList<>();
+			List<List<Box>> rehomedPartial = optimizeGroups(regrouped, rehomedFull);
+			if (rehomedFull.size() + rehomedPartial.size() >= partialBins.size()) {
+				break;
+			}
+			result.addAll(rehomedFull);
+			partialBins = rehomedPartial;
+		}
+		result.addAll(partialBins);
+
+		return result;
+	}
+
+	/**
+	 * The boxes of the last {@link #optimize} call that fit no empty bin, by size
+	 * or by weight. They are in none of its bins.
+	 */
+	public List<Box> getRejected() {
+		return rejected;
+	}
+
+	private boolean fitsEmptyBin(Box box) {
+		if (weightLimit > 0 && box.weight > weightLimit) {
+			return false;
+		}
+		Space empty = new Space(0, 0, 0, bin.w, bin.h, bin.d);
+		return PlacementUtils.findFit(box, empty, rotationAxes) != null;
+	}
+
+	/**
+	 * Optimizes all groups concurrently. Full bins are added to fullBins, and the
+	 * last, partly filled bin of every group is returned.
+	 */
+	private List<List<Box>> optimizeGroups(List<List<Box>> groups, List<List<Box>> fullBins) {
+		List<Future<List<List<Box>>>> futures = new ArrayList<>();
+		for (List<Box> group : groups) {
+			futures.add(executor.submit(() -> optimizeGroup(group)));
+		}
+
+		List<List<Box>> partialBins = new ArrayList<>();
+		for (Future<List<List<Box>>> future : futures) {
+			List<List<Box>> packed;
+			try {
+				packed = future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while optimizing groups", e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException("Failed to optimize group", e.getCause());
+			}
+			packed.removeIf(List::isEmpty);
+			if (packed.isEmpty()) {
+				continue;
+			}
+			fullBins.addAll(packed.subList(0, packed.size() - 1));
+			partialBins.add(packed.get(packed.size() - 1));
+		}
+		return partialBins;
+	}
+
+	/**
+	 * Groups boxes of similar size, largest first, so that each group holds about
+	 * binsPerGroup bins worth of volume (and weight, if limited).
+	 */
+	List<List<Box>> partition(List<Box> boxes) {
+		List<Box> sorted = new ArrayList<>(boxes);
+		sorted.sort((b1, b2) -> Double.compare(b2.getVolume(), b1.getVolume()));
+
+		double volumeTarget = binsPerGroup * bin.getVolume();
+		double weightTarget = binsPerGroup * weightLimit;
+
+		List<List<Box>> groups = new ArrayList<>();
+		List<Box> group = new ArrayList<>();
+		double groupVolume = 0;
+		double groupWeight = 0;
+		for (Box box : sorted) {
+			boolean overVolume = groupVolume + box.getVolume() > volumeTarget;
+			boolean overWeight = weightLimit > 0 && groupWeight + box.weight > weightTarget;
+			if (!group.isEmpty() && (overVolume || overWeight)) {
+				groups.add(group);
+				group = new ArrayList<>();
+				groupVolume = 0;
+				groupWeight = 0;
+			}
+			group.add(box);
+			groupVolume += box.getVolume();
+			groupWeight += box.weight;
+		}
+		if (!group.isEmpty()) {
+			groups.add(group);
+		}
+		return groups;
+	}
+
+	private List<List<Box>> optimizeGroup(List<Box> group) {
+		CPUOptimizer optimizer = new CPUOptimizer();
+		try {
+			// Groups already run in parallel, so each optimizer stays single threaded
+			optimizer.initialize(solverSource, group, bin, false, "x", rotationAxes, populationSize, eliteCount,
+					false);
+			List<List<Box>> best = new ArrayList<>();
+			for (int i = 0; i < generations; i++) {
+				best = optimizer.executeNextGeneration();
+			}
+			int placed = 0;
+			for (List<Box> packed : best) {
+				placed += packed.size();
+			}
+			if (placed != group.size()) {
+				throw new IllegalStateException("Packed " + placed + " of the " + group.size() + " boxes of a group");
+			}
+			return best;
+		} finally {
+			optimizer.release();
+		}
+	}
+
+	private List<Box> unplaced(List<List<Box>> bins) {
+		List<Box> boxes = new ArrayList<>();
+		for (List<Box> placed : bins) {
+			for (Box box : placed) {
+				boxes.add(new Box(box.id, new Point3f(0, 0, 0), new Point3f(box.size.x, box.size.y, box.size.z),
+						box.weight));
+			}
+		}
+		return boxes;
+	}
+
+	public void release() {
+		if (ownsExecutor) {
+			executor.shutdownNow();
+		}
+	}
+}
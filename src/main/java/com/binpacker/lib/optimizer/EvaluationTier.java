@@ -0,0 +1,87 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A cheap evaluation that children must pass before the optimizer packs them
+ * with its own, expensive solver. The children are scored by an evaluator
+ * optimizer, for example a {@link CPUOptimizer} running {@code FirstFit3D} in
+ * front of {@code BestFitEMS} or the EMS kernel, and only the best keepFraction
+ * of them move on to the next tier or to the real evaluation. A
+ * {@link CPUOptimizer} with {@link CPUOptimizer#setPrefixFraction} scores only
+ * the start of each order.
+ *
+ * Tiers are added with {@link Optimizer#addEvaluationTier}. The optimizer then
+ * breeds enough children that the last tier leaves as many as it packs.
+ */
+public class EvaluationTier<T> {
+
+	private final Supplier<? extends Optimizer<T>> evaluatorFactory;
+	private final T solverSource;
+	private final double keepFraction;
+
+	private final AtomicLong screened = new AtomicLong();
+	private final AtomicLong promoted = new AtomicLong();
+	private final AtomicLong nanos = new AtomicLong();
+
+	/**
+	 * @param evaluatorFactory creates an uninitialized optimizer whose
+	 *                         evaluation scores the children
+	 * @param solverSource     solver source of the evaluator
+	 * @param keepFraction     share of the children passed on, in (0, 1]
+	 */
+	public EvaluationTier(Supplier<? extends Optimizer<T>> evaluatorFactory, T solverSource, double keepFraction) {
+		if (!(keepFraction > 0 && keepFraction <= 1)) {
+			throw new IllegalArgumentException("Keep fraction must be in (0, 1]: " + keepFraction);
+		}
+		this.evaluatorFactory = evaluatorFactory;
+		this.solverSource = solverSource;
+		this.keepFraction = keepFraction;
+	}
+
+	public double getKeepFraction() {
+		return keepFraction;
+	}
+
+	/**
+	 * An evaluator for the problem of the given optimizer, stopping when it
+	 * stops.
+	 */
+	Optimizer<T> createEvaluator(Optimizer<?> owner) {
+		Optimizer<T> evaluator = evaluatorFactory.get();
+		evaluator.setSeed(owner.seed);
+		evaluator.stopWith(owner::isStopRequested);
+		evaluator.setHybrid(owner.hybridVolume, owner.hybridSide);
+		evaluator.initialize(solverSource, owner.allBoxes, owner.bin, owner.growingBin, owner.growAxis,
+				owner.rotationAxes, 2, 1, owner.threaded);
+		return evaluator;
+	}
+
+	void record(int screenedChildren, int promotedChildren, long elapsedNanos) {
+		screened.addAndGet(screenedChildren);
+		promoted.addAndGet(promotedChildren);
+		nanos.addAndGet(elapsedNanos);
+	}
+
+	/**
+	 * Children scored by this tier so far.
+	 */
+	public long getScreened() {
+		return screened.get();
+	}
+
+	/**
+	 * Children passed on by this tier so far.
+	 */
+	public long getPromoted() {
+		return promoted.get();
+	}
+
+	/**
+	 * Time spent scoring children in this tier so far.
+	 */
+	public long getNanos() {
+		return nanos.get();
+	}
+}
@@ -0,0 +1,155 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.optimizer.operators.BoxTypes;
+
+/**
+ * Bounded LRU cache of order scores for one problem instance.
+ *
+ * Orders are keyed by a 128-bit hash of their box type sequence, where boxes
+ * with the same size and weight share a type. Two orders that only swap
+ * identical boxes therefore pack the same way and share one entry.
+ */
+public class FitnessCache {
+
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	private final int[] boxTypes;
+	private final int capacity;
+	private final LinkedHashMap<Key, Double> scores;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	public FitnessCache(List<Box> boxes, int capacity) {
+		this.capacity = Math.max(1, capacity);
+		this.boxTypes = BoxTypes.of(boxes);
+
+		this.scores = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Double> eldest) {
+				return size() > FitnessCache.this.capacity;
+			}
+		};
+	}
+
+	Key key(int[] order) {
+		// Two independently seeded 64-bit hashes over the type sequence
+		long h1 = 0x243F6A8885A308D3L;
+		long h2 = 0x13198A2E03707344L;
+		for (int index : order) {
+			int type = boxTypes[index];
+			h1 = Long.rotateLeft((h1 ^ type) * 0x9E3779B97F4A7C15L, 31);
+			h2 = (h2 + type) * 0xC2B2AE3D27D4EB4FL;
+			h2 ^= h2 >>> 29;
+		}
+		return new Key(mix(h1 ^ order.length), mix(h2));
+	}
+
+	/**
+	 * Cached score of the order with the given key, or null.
+	 */
+	synchronized Double get(Key key) {
+		Double score = scores.get(key);
+		if (score != null) {
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+		}
+		return score;
+	}
+
+	synchronized void put(Key key, double score) {
+		scores.put(key, score);
+	}
+
+	/**
+	 * Records a lookup that was answered without the cache, e.g. a duplicate
+	 * order within the same generation.
+	 */
+	void recordHit() {
+		hits.incrementAndGet();
+	}
+
+	public synchronized int size() {
+		return scores.size();
+	}
+
+	public synchronized void clear() {
+		scores.clear();
+	}
+
+	/**
+	 * Writes the cached scores, least recently used first, and the counters.
+	 */
+	synchronized void write(StateBuffer out) {
+		out.putLong(hits.get());
+		out.putLong(misses.get());
+		out.putInt(scores.size());
+		for (Map.Entry<Key, Double> entry : scores.entrySet()) {
+			out.putLong(entry.getKey().high);
+			out.putLong(entry.getKey().low);
+			out.putDouble(entry.getValue());
+		}
+	}
+
+	/**
+	 * Replaces the contents with those written by {@link #write}.
+	 */
+	synchronized void read(StateBuffer in) {
+		scores.clear();
+		hits.set(in.getLong());
+		misses.set(in.getLong());
+		int count = in.getInt();
+		for (int i = 0; i < count; i++) {
+			Key key = new Key(in.getLong(), in.getLong());
+			scores.put(key, in.getDouble());
+		}
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	static final class Key {
+		private final long high;
+		private final long low;
+
+		Key(long high, long low) {
+			this.high = high;
+			this.low = low;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+			return high == key.high && low == key.low;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(high ^ low);
+		}
+	}
+}
@@ -15,7 +15,16 @@ public class GPUOptimizer extends Optimizer<ParallelSolverInterface> {
 	private ReferenceSolver referenceSolver;
 
 	@Override
-	protected List<Solution> evaluatePopulation(List<List<Integer>> population) {
+	protected List<Solution> evaluatePopulation(List<int[]> population) {
+		if (isStopRequested()) {
+			// Don't start another launch, the orders get the worst score
+			List<Solution> skipped = new ArrayList<>();
+			for (int[] order : population) {
+				skipped.add(Solution.aborted(order, growingBin));
+			}
+			return skipped;
+		}
+
 		// Get reference solver from OpenCLSolver if available
 		if (referenceSolver == null && solverSource instanceof OpenCLSolver) {
 			referenceSolver = ((OpenCLSolver) solverSource).getReferenceSolver();
@@ -30,13 +39,13 @@ public class GPUOptimizer extends Optimizer<ParallelSolverInterface> {
 				if (referenceSolver != null) {
 					// Create a dummy identity order
 					List<Integer> identityOrder = new ArrayList<>();
-					for (int i = 0; i < boxes.size(); i++) {
+					for (int i = 0; i < allBoxes.size(); i++) {
 						identityOrder.add(i);
 					}
 
 					// Deep copy boxes to avoid side effects
 					List<Box> testBoxes = new ArrayList<>();
-					for (Box b : boxes) {
+					for (Box b : allBoxes) {
 						testBoxes.add(new Box(b.id, new com.binpacker.lib.common.Point3f(0, 0, 0),
 								new com.binpacker.lib.common.Point3f(b.size.x, b.size.y, b.size.z)));
 					}
@@ -71,12 +80,28 @@ public class GPUOptimizer extends Optimizer<ParallelSolverInterface> {
 			}
 		}
 
-		// Use the GPU solver to get scores for all orders in parallel
-		List<Double> scores = solverSource.solve(boxes, population);
+		// Use the GPU solver to get scores for all orders in parallel. In hybrid
+		// mode the kernel packs the fill boxes after each order
+		int numBoxes = allBoxes.size();
+		int[] orders = new int[population.size() * numBoxes];
+		for (int i = 0; i < population.size(); i++) {
+			System.arraycopy(fullOrder(population.get(i)), 0, orders, i * numBoxes, numBoxes);
+		}
+		long start = System.nanoTime();
+		List<Double> scores;
+		if (solverSource instanceof OpenCLSolver && !growingBin && !Double.isNaN(cutoff)) {
+			// Orders that cannot reach the worst elite stop early and score -inf
+			scores = ((OpenCLSolver) solverSource).solve(allBoxes, orders, (float) cutoff);
+		} else {
+			scores = solverSource.solve(allBoxes, orders);
+		}
+
+		// The batch runs in parallel, so each order is charged an equal share
+		long nanos = (System.nanoTime() - start) / Math.max(1, population.size());
 
 		List<Solution> scored = new ArrayList<>();
 		for (int i = 0; i < population.size(); i++) {
-			List<Integer> order = population.get(i);
+			int[] order = population.get(i);
 			double volumeScore = scores.get(i);
 
 			double finalScore = 0;
@@ -89,7 +114,10 @@ public class GPUOptimizer extends Optimizer<ParallelSolverInterface> {
 			}
 
 			// We pass null for 'solved' because we don't have the boxes yet.
-			scored.add(new Solution(order, finalScore, null));
+			Solution solution = new Solution(order, finalScore, null);
+			solution.placed = numBoxes;
+			solution.nanos = nanos;
+			scored.add(solution);
 		}
 
 		return scored;
@@ -98,7 +126,12 @@ public class GPUOptimizer extends Optimizer<ParallelSolverInterface> {
 	@Override
 	protected List<List<Box>> finalizeBestSolution(Solution bestSolution) {
 		// Reconstruct the full solution using CPU reference
-		List<Bin> packedBins = referenceSolver.solve(boxes, bestSolution.order,
+		int[] full = fullOrder(bestSolution.order);
+		List<Integer> order = new ArrayList<>(full.length);
+		for (int index : full) {
+			order.add(index);
+		}
+		List<Bin> packedBins = referenceSolver.solve(allBoxes, order,
 				new com.binpacker.lib.solver.common.SolverProperties(bin, growingBin, growAxis, rotationAxes));
 
 		List<List<Box>> result = new ArrayList<>();
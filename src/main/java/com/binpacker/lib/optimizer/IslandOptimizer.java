@@ -0,0 +1,287 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+
+/**
+ * Island model GA. Several independent optimizers, each with its own
+ * population, run a generation at a time side by side, each on its own thread.
+ * Every few generations the best orders of each island migrate to a neighbour
+ * and replace some of its children.
+ *
+ * Islands are single threaded, and populationSize and eliteCount apply per
+ * island. They advance in lockstep: each generation waits for every island
+ * to finish, so a slow island holds up the others. Each island publishes its
+ * migrants to its own slot of a shared exchange buffer, and its neighbour
+ * picks them up at the start of the next generation.
+ */
+public class IslandOptimizer<S> extends Optimizer<S> {
+
+	private final Supplier<? extends Optimizer<S>> islandFactory;
+	private final int islandCount;
+	private final int migrationInterval;
+	private final int migrants;
+	private final boolean randomTopology;
+
+	private final List<Optimizer<S>> islands = new ArrayList<>();
+	private final List<ExecutorService> islandThreads = new ArrayList<>();
+	private AtomicReferenceArray<int[][]> outbox;
+
+	/**
+	 * @param islandFactory     creates an uninitialized optimizer per island
+	 * @param migrationInterval generations between migrations
+	 * @param migrants          orders sent by each island per migration
+	 * @param randomTopology    migrate between random pairs of islands instead
+	 *                          of around a ring
+	 */
+	public IslandOptimizer(Supplier<? extends Optimizer<S>> islandFactory, int islandCount, int migrationInterval,
+			int migrants, boolean randomTopology) {
+		this.islandFactory = islandFactory;
+		this.islandCount = Math.max(1, islandCount);
+		this.migrationInterval = Math.max(1, migrationInterval);
+		this.migrants = migrants;
+		this.randomTopology = randomTopology;
+	}
+
+	public IslandOptimizer(Supplier<? extends Optimizer<S>> islandFactory, int islandCount) {
+		this(islandFactory, islandCount, 5, 2, false);
+	}
+
+	@Override
+	public void initialize(S solverSource, List<Box> boxes, Bin bin, boolean growingBin, String growAxis,
+			List<Integer> rotationAxes, int populationSize, int eliteCount, boolean threaded) {
+		release();
+		outbox = new AtomicReferenceArray<>(islandCount);
+		for (int i = 0; i < islandCount; i++) {
+			Optimizer<S> island = islandFactory.get();
+			island.setSeed(seed + 0x9E3779B97F4A7C15L * (i + 1));
+			island.setLocalSearch(localSearchMoves);
+			island.setSolutionStore(solutionStore);
+			island.setHybrid(hybridVolume, hybridSide);
+			for (EvaluationTier<?> tier : getEvaluationTiers()) {
+				island.addEvaluationTier(tier);
+			}
+			island.stopWith(this::isStopRequested);
+			island.initialize(solverSource, boxes, bin, growingBin, growAxis, rotationAxes, populationSize,
+					eliteCount, false);
+			islands.add(island);
+			islandThreads.add(Executors.newSingleThreadExecutor());
+		}
+		super.initialize(solverSource, boxes, bin, growingBin, growAxis, rotationAxes, populationSize, eliteCount,
+				threaded);
+	}
+
+	@Override
+	public void generateInitialPopulation() {
+		// Each island generates its own, this is only a combined view
+		boxOrders = new ArrayList<>();
+		for (Optimizer<S> island : islands) {
+			boxOrders.addAll(island.boxOrders);
+		}
+	}
+
+	@Override
+	public List<List<Box>> executeNextGeneration() {
+		if (generation > 0 && generation % migrationInterval == 0) {
+			// Migrants were published at the end of the previous generation
+			int[] sources = migrationSources();
+			for (int i = 0; i < islands.size(); i++) {
+				if (sources[i] >= 0) {
+					receive(islands.get(i), outbox.get(sources[i]));
+				}
+			}
+			for (int i = 0; i < islands.size(); i++) {
+				outbox.set(i, null);
+			}
+		}
+
+		boolean publish = (generation + 1) % migrationInterval == 0;
+		List<Future<List<List<Box>>>> futures = new ArrayList<>();
+		List<List<List<Box>>> results = new ArrayList<>();
+		for (int i = 0; i < islands.size(); i++) {
+			Optimizer<S> island = islands.get(i);
+			int index = i;
+			Supplier<List<List<Box>>> step = () -> {
+				List<List<Box>> best = island.executeNextGeneration();
+				if (publish) {
+					outbox.set(index, emigrants(island));
+				}
+				return best;
+			};
+			if (threaded) {
+				futures.add(islandThreads.get(i).submit(step::get));
+			} else {
+				results.add(step.get());
+			}
+		}
+
+		for (Future<List<List<Box>>> future : futures) {
+			try {
+				results.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while evolving islands", e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException("Island failed", e.getCause());
+			}
+		}
+		generation++;
+
+		List<List<Box>> best = null;
+		double bestScore = 0;
+		for (List<List<Box>> result : results) {
+			double score = rate(result, bin);
+			if (best == null || isBetter(score, bestScore)) {
+				best = result;
+				bestScore = score;
+			}
+		}
+
+		generateInitialPopulation();
+		return best;
+	}
+
+	/**
+	 * Island each island receives migrants from in this migration.
+	 */
+	private int[] migrationSources() {
+		int[] sources = new int[islands.size()];
+		if (islands.size() < 2) {
+			sources[0] = -1;
+			return sources;
+		}
+		SplittableRandom random = new SplittableRandom(seed ^ generation);
+		for (int i = 0; i < sources.length; i++) {
+			int offset = randomTopology ? 1 + random.nextInt(sources.length - 1) : 1;
+			sources[i] = (i - offset + sources.length) % sources.length;
+		}
+		return sources;
+	}
+
+	private int[][] emigrants(Optimizer<S> island) {
+		// After a generation, the elites lead the new population, best first
+		int count = Math.min(migrants, island.boxOrders.size());
+		int[][] orders = new int[count][];
+		for (int i = 0; i < count; i++) {
+			orders[i] = island.boxOrders.get(i).clone();
+		}
+		return orders;
+	}
+
+	private void receive(Optimizer<S> island, int[][] immigrants) {
+		if (immigrants == null) {
+			return;
+		}
+		// Replace the last children, never the elites at the front
+		int size = island.boxOrders.size();
+		for (int i = 0; i < immigrants.length && i < size; i++) {
+			island.replaceMember(size - 1 - i, immigrants[i].clone());
+		}
+	}
+
+	@Override
+	protected boolean supportsCheckpoints() {
+		for (Optimizer<S> island : islands) {
+			if (!island.supportsCheckpoints()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	protected void writeState(StateBuffer out) {
+		out.putLong(seed);
+		out.putInt(generation);
+		out.putInt(islands.size());
+		for (int i = 0; i < islands.size(); i++) {
+			// Migrants published but not yet received
+			int[][] migrants = outbox.get(i);
+			out.putInt(migrants == null ? -1 : migrants.length);
+			if (migrants != null) {
+				for (int[] order : migrants) {
+					out.putInts(order);
+				}
+			}
+		}
+		for (Optimizer<S> island : islands) {
+			island.writeState(out);
+		}
+	}
+
+	@Override
+	protected void readState(StateBuffer in) {
+		seed = in.getLong();
+		generation = in.getInt();
+		int count = in.getInt();
+		if (count != islands.size()) {
+			throw new IllegalArgumentException("Checkpoint has " + count + " islands, not " + islands.size());
+		}
+		for (int i = 0; i < count; i++) {
+			int migrantCount = in.getInt();
+			int[][] migrants = null;
+			if (migrantCount >= 0) {
+				migrants = new int[migrantCount][];
+				for (int m = 0; m < migrantCount; m++) {
+					migrants[m] = in.getInts(boxes.size());
+				}
+			}
+			outbox.set(i, migrants);
+		}
+		for (Optimizer<S> island : islands) {
+			island.readState(in);
+		}
+		generateInitialPopulation();
+	}
+
+	@Override
+	protected List<Solution> evaluatePopulation(List<int[]> population) {
+		return islands.get(0).evaluatePopulation(population);
+	}
+
+	@Override
+	protected List<Solution> scoredOrders() {
+		// Each island scored its own orders
+		List<Solution> scored = new ArrayList<>();
+		for (Optimizer<S> island : islands) {
+			scored.addAll(island.scoredOrders());
+		}
+		return scored;
+	}
+
+	@Override
+	protected List<List<Box>> finalizeBestSolution(Solution bestSolution) {
+		return islands.get(0).finalizeBestSolution(bestSolution);
+	}
+
+	@Override
+	public double rate(List<List<Box>> solution, Bin bin) {
+		return islands.get(0).rate(solution, bin);
+	}
+
+	public List<Optimizer<S>> getIslands() {
+		return islands;
+	}
+
+	@Override
+	public void release() {
+		for (ExecutorService thread : islandThreads) {
+			thread.shutdown();
+		}
+		for (Optimizer<S> island : islands) {
+			island.release();
+		}
+		islandThreads.clear();
+		islands.clear();
+	}
+}
@@ -0,0 +1,325 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.DoubleStream;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+
+/**
+ * Lower bounds for an instance, computed once: on the number of bins, or on
+ * the extent in growing-bin mode. No packing can do better, so a packing that
+ * reaches the bound is optimal and the search can stop.
+ *
+ * Bin bounds:
+ * <ul>
+ * <li>volume and weight: total volume or weight over what one bin holds</li>
+ * <li>L1 (Martello, Pisinger and Vigo): boxes longer than half the bin in both
+ * of two axes cannot lie side by side in those axes, so they are stacked along
+ * the third. Their lengths in that axis give a one-dimensional problem, bounded
+ * with Martello and Toth's L2</li>
+ * <li>L2: the boxes longer than W - p and H - q leave no room beside them for
+ * boxes at least p wide and q high, so those boxes and the depth the long ones
+ * are stacked in need separate room, for each p and q</li>
+ * </ul>
+ * Rotations are taken into account by using, for each box, the orientation
+ * most favourable to the bound among the ones that fit the bin.
+ *
+ * The extent bound is the largest of the longest box side, the total volume
+ * over the cross-section of the bin, and the stacked length of the boxes that
+ * cannot lie side by side in the cross-section.
+ */
+public class LowerBounds {
+
+	// Candidate values of p and q per axis, more only tighten the L2 bound a
+	// little while its cost grows with their square
+	private static final int MAX_CANDIDATES = 32;
+	// Relative tolerance when comparing float extents with the bound
+	private static final double EXTENT_TOLERANCE = 1e-6;
+
+	public final int volumeBins;
+	public final int weightBins;
+	public final int l1Bins;
+	public final int l2Bins;
+	// Largest of the bin bounds
+	public final int bins;
+	// Lower bound on the extent in growing-bin mode, NaN otherwise
+	public final double extent;
+
+	private final boolean growingBin;
+
+	private final double[] size = new double[3];
+	// Of each box that fits the bin, its shortest length in each axis and its
+	// smallest volume over the orientations that fit
+	private final List<double[]> lengths = new ArrayList<>();
+	private final List<Double> volumes = new ArrayList<>();
+
+	public LowerBounds(List<Box> boxes, Bin bin, boolean growingBin, String growAxis, List<Integer> rotationAxes) {
+		this.growingBin = growingBin;
+		int grow = growingBin ? axisIndex(growAxis) : -1;
+		// A flat bin is two-dimensional, its missing axis counts as 1
+		size[0] = bin.w > 0 ? bin.w : 1;
+		size[1] = bin.h > 0 ? bin.h : 1;
+		size[2] = bin.d > 0 ? bin.d : 1;
+		boolean[] flat = { bin.w <= 0, bin.h <= 0, bin.d <= 0 };
+
+		double volume = 0;
+		double weight = 0;
+		double longestSide = 0;
+		for (Box box : boxes) {
+			float[][] fitting = fittingOrientations(box, rotationAxes, flat, grow);
+			if (fitting.length == 0) {
+				// Cannot be packed at all, so it cannot constrain the packing
+				continue;
+			}
+			double[] shortest = { Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE };
+			double smallest = Double.MAX_VALUE;
+			for (float[] orientation : fitting) {
+				for (int axis = 0; axis < 3; axis++) {
+					shortest[axis] = Math.min(shortest[axis], orientation[axis]);
+				}
+				smallest = Math.min(smallest, (double) orientation[0] * orientation[1] * orientation[2]);
+			}
+			lengths.add(shortest);
+			volumes.add(smallest);
+			volume += smallest;
+			weight += box.weight;
+			longestSide = Math.max(longestSide, Math.max(box.size.x, Math.max(box.size.y, box.size.z)));
+		}
+
+		if (growingBin) {
+			int a = grow == 0 ? 1 : 0;
+			int b = grow == 2 ? 1 : 2;
+			double crossSection = size[a] * size[b];
+			double stacked = stackedLength(a, b, grow);
+			this.extent = Math.max(longestSide, Math.max(volume / crossSection, stacked));
+			this.volumeBins = lengths.isEmpty() ? 0 : 1;
+			this.weightBins = volumeBins;
+			this.l1Bins = volumeBins;
+			this.l2Bins = volumeBins;
+			this.bins = volumeBins;
+			return;
+		}
+
+		this.extent = Double.NaN;
+		double binVolume = size[0] * size[1] * size[2];
+		this.volumeBins = ceil(volume / binVolume);
+		this.weightBins = bin.maxWeight > 0 ? ceil(weight / bin.maxWeight) : 0;
+		int l1 = 0;
+		int l2 = 0;
+		for (int c = 0; c < 3; c++) {
+			int a = c == 0 ? 1 : 0;
+			int b = c == 2 ? 1 : 2;
+			l1 = Math.max(l1, l1Bound(a, b, c));
+			l2 = Math.max(l2, l2Bound(a, b, c));
+		}
+		this.l1Bins = l1;
+		this.l2Bins = l2;
+		this.bins = Math.max(Math.max(volumeBins, weightBins), Math.max(l1Bins, l2Bins));
+	}
+
+	/**
+	 * Relative distance of the packing from the bound, 0 when it is optimal:
+	 * (bins - bound) / bins, or the same for the extent in growing-bin mode.
+	 */
+	public double gap(List<List<Box>> packing) {
+		if (growingBin) {
+			double packed = extentOf(packing);
+			if (packed <= 0) {
+				return 0;
+			}
+			double gap = (packed - extent) / packed;
+			return gap <= EXTENT_TOLERANCE ? 0 : gap;
+		}
+		int used = 0;
+		for (List<Box> packedBin : packing) {
+			if (!packedBin.isEmpty()) {
+				used++;
+			}
+		}
+		return used > 0 ? Math.max(0, (double) (used - bins) / used) : 0;
+	}
+
+	/**
+	 * Largest coordinate reached by a box in any axis.
+	 */
+	static double extentOf(List<List<Box>> packing) {
+		double extent = 0;
+		for (List<Box> packedBin : packing) {
+			for (Box box : packedBin) {
+				extent = Math.max(extent, box.position.x + box.size.x);
+				extent = Math.max(extent, box.position.y + box.size.y);
+				extent = Math.max(extent, box.position.z + box.size.z);
+			}
+		}
+		return extent;
+	}
+
+	/**
+	 * Boxes longer than half the bin in axes a and b are stacked along c, each
+	 * bin holding one stack. Martello and Toth's L2 on their lengths along c.
+	 */
+	private int l1Bound(int a, int b, int c) {
+		double[] items = lengths.stream()
+				.filter(box -> box[a] > size[a] / 2 && box[b] > size[b] / 2)
+				.mapToDouble(box -> box[c])
+				.toArray();
+		return martelloTothL2(items, size[c]);
+	}
+
+	/**
+	 * For p and q up to half the bin in axes a and b: a box longer than
+	 * size[a] - p and size[b] - q leaves strips narrower than p or q beside it,
+	 * so no box at least p by q overlaps it along c. Those boxes and the stacked
+	 * long ones each need their own part of the bins.
+	 */
+	private int l2Bound(int a, int b, int c) {
+		double area = size[a] * size[b];
+		double binVolume = area * size[c];
+		int best = 0;
+		double[] qs = candidates(b);
+		for (double p : candidates(a)) {
+			for (double q : qs) {
+				double volume = 0;
+				for (int i = 0; i < lengths.size(); i++) {
+					double[] box = lengths.get(i);
+					if (box[a] > size[a] - p && box[b] > size[b] - q) {
+						volume += box[c] * area;
+					} else if (box[a] >= p && box[b] >= q) {
+						volume += volumes.get(i);
+					}
+				}
+				best = Math.max(best, ceil(volume / binVolume));
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Length along c of the boxes longer than half the bin in axes a and b,
+	 * which cannot lie side by side.
+	 */
+	private double stackedLength(int a, int b, int c) {
+		double length = 0;
+		for (double[] box : lengths) {
+			if (box[a] > size[a] / 2 && box[b] > size[b] / 2) {
+				length += box[c];
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Lengths of boxes in axis a up to half the bin, at most MAX_CANDIDATES of
+	 * them spread over their range.
+	 */
+	private double[] candidates(int a) {
+		double[] values = lengths.stream()
+				.mapToDouble(box -> box[a])
+				.filter(length -> length > 0 && length <= size[a] / 2)
+				.distinct()
+				.sorted()
+				.toArray();
+		if (values.length <= MAX_CANDIDATES) {
+			return values;
+		}
+		double[] spread = new double[MAX_CANDIDATES];
+		for (int i = 0; i < MAX_CANDIDATES; i++) {
+			spread[i] = values[(int) ((long) i * (values.length - 1) / (MAX_CANDIDATES - 1))];
+		}
+		return spread;
+	}
+
+	/**
+	 * Martello and Toth's L2 bound on the bins of the given capacity needed for
+	 * one-dimensional items.
+	 */
+	static int martelloTothL2(double[] items, double capacity) {
+		double total = 0;
+		for (double item : items) {
+			total += item;
+		}
+		int best = ceil(total / capacity);
+		// p = 0 counts the items above half the capacity, one per bin
+		double[] thresholds = DoubleStream.concat(DoubleStream.of(0), Arrays.stream(items))
+				.filter(item -> item <= capacity / 2)
+				.distinct()
+				.toArray();
+		for (double p : thresholds) {
+			// Items above capacity - p fit with none of those at least p, items
+			// above half the capacity with none of each other
+			int large = 0;
+			int medium = 0;
+			double mediumRoom = 0;
+			double small = 0;
+			for (double item : items) {
+				if (item > capacity - p) {
+					large++;
+				} else if (item > capacity / 2) {
+					medium++;
+					mediumRoom += capacity - item;
+				} else if (item >= p) {
+					small += item;
+				}
+			}
+			best = Math.max(best, large + medium + Math.max(0, ceil((small - mediumRoom) / capacity)));
+		}
+		return best;
+	}
+
+	/**
+	 * The orientations findFit may place the box in that fit an empty bin, in
+	 * which the grow axis is unbounded.
+	 */
+	private float[][] fittingOrientations(Box box, List<Integer> rotationAxes, boolean[] flat, int grow) {
+		float x = box.size.x;
+		float y = box.size.y;
+		float z = box.size.z;
+		List<float[]> all = new ArrayList<>();
+		all.add(new float[] { x, y, z });
+		if (rotationAxes != null) {
+			if (rotationAxes.contains(0)) {
+				all.add(new float[] { x, z, y });
+			}
+			if (rotationAxes.contains(1)) {
+				all.add(new float[] { y, x, z });
+			}
+			if (rotationAxes.contains(2)) {
+				all.add(new float[] { z, y, x });
+			}
+		}
+		List<float[]> fitting = new ArrayList<>();
+		for (float[] orientation : all) {
+			boolean fits = true;
+			for (int axis = 0; axis < 3; axis++) {
+				if (flat[axis]) {
+					orientation[axis] = 1;
+				} else if (axis != grow && orientation[axis] > size[axis]) {
+					fits = false;
+				}
+			}
+			if (fits) {
+				fitting.add(orientation);
+			}
+		}
+		return fitting.toArray(new float[0][]);
+	}
+
+	private static int axisIndex(String axis) {
+		switch (axis) {
+			case "x":
+				return 0;
+			case "z":
+				return 2;
+			default:
+				return 1;
+		}
+	}
+
+	private static int ceil(double value) {
+		// Volumes are sums of floats, don't let rounding add a bin
+		return (int) Math.ceil(value - 1e-9);
+	}
+}
@@ -1,15 +1,44 @@
 package com.binpacker.lib.optimizer;
 
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Random;
-import java.util.function.Supplier;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
 
 import com.binpacker.lib.common.Bin;
 import com.binpacker.lib.common.Box;
-import com.binpacker.lib.solver.cpusolvers.SolverInterface;
+import com.binpacker.lib.optimizer.operators.BoxTypes;
+import com.binpacker.lib.optimizer.operators.InsertionMove;
+import com.binpacker.lib.optimizer.operators.OperatorPortfolio;
+import com.binpacker.lib.optimizer.operators.OrderCrossover;
+import com.binpacker.lib.optimizer.operators.PermutationOperator;
+import com.binpacker.lib.optimizer.operators.SwapMove;
 
 public abstract class Optimizer<S> {
 
@@ -17,8 +46,16 @@ public abstract class Optimizer<S> {
 	protected List<Box> boxes;
 	protected Bin bin;
 
-	protected List<List<Integer>> boxOrders; // Population
-	protected Random random = new Random();
+	// Hybrid mode: orders cover only the large boxes, the small ones follow
+	// every order as a fixed suffix, by descending volume, for the solver to
+	// fit into the space the large ones leave. allBoxes is boxes followed by
+	// fillBoxes, fillBoxes is empty unless hybrid
+	protected List<Box> fillBoxes = List.of();
+	protected List<Box> allBoxes;
+	protected double hybridVolume;
+	protected double hybridSide;
+
+	protected List<int[]> boxOrders; // Population, each order a permutation of box indices
 	protected int populationSize;
 	private int eliteCount;
 	protected boolean growingBin;
@@ -27,10 +64,100 @@ public abstract class Optimizer<S> {
 
 	protected boolean threaded;
 
-	protected abstract List<Solution> evaluatePopulation(List<List<Integer>> population);
+	// Every random choice is derived from the seed and the generation, so a run
+	// is reproducible even though children are bred in parallel
+	protected long seed = new Random().nextLong();
+	protected int generation;
+
+	// Scores of already evaluated orders, so elites and duplicates are not solved
+	// again
+	protected FitnessCache fitnessCache;
+	private int fitnessCacheCapacity = FitnessCache.DEFAULT_CAPACITY;
+	// Score of the worst elite. An order that cannot beat it would not be kept,
+	// so evaluations may stop early once they are bound to miss it. NaN until
+	// there is a full set of elites
+	protected double cutoff = Double.NaN;
+
+	private Solution lastBest;
+	private FitnessCache.Key lastBestKey;
+
+	// Breeding operators, picked adaptively by how much they improve per box
+	// packed
+	protected OperatorPortfolio operators;
+	private List<PermutationOperator> customOperators;
+	// Operator and best parent score of each child in the current population,
+	// -1 for elites and initial orders
+	private int[] childOperators;
+	private double[] parentScores;
+
+	// Neighbours tried around each elite after every generation, 0 for none
+	protected int localSearchMoves;
+	private final PermutationOperator[] localMoves = { new SwapMove(), new InsertionMove() };
+	private long localSearchImprovements;
+
+	// Surrogate screening: breed surrogatePoolFactor times as many children and
+	// pack only those predicted best. Features and predictions of each child in
+	// the current population, null and NaN for elites
+	private int surrogatePoolFactor;
+	protected SurrogateModel surrogate;
+	private double[][] childFeatures;
+	private double[] childPredictions;
+
+	// Cheaper evaluations children pass before they are packed, and one
+	// evaluator per tier, created on first use
+	private final List<EvaluationTier<?>> tiers = new ArrayList<>();
+	private List<Optimizer<?>> tierEvaluators;
+
+	// Stop requests, polled between generations and by solvers between boxes
+	private static final long STOP_MARGIN_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+	private volatile boolean cancelled;
+	private volatile boolean hasDeadline;
+	private final Object runLock = new Object();
+	private volatile long deadlineNanos;
+	private volatile BooleanSupplier parentStop;
+
+	// Bounds of the instance, and the optimality gap of the best packing found
+	// by optimize(). A run stops once the gap is 0
+	protected LowerBounds lowerBounds;
+	private volatile double gap = Double.NaN;
+	private boolean stopWhenOptimal = true;
+
+	// Checkpoints saved by optimize() every checkpointInterval generations,
+	// none if checkpointFile is null
+	private static final int CHECKPOINT_MAGIC = 0x42504B43;
+	private static final int CHECKPOINT_VERSION = 1;
+	private Path checkpointFile;
+	private int checkpointInterval;
+
+	// Past best orders that seed the initial population, and that optimize()
+	// adds the best of this run to. Null for none
+	protected SolutionStore solutionStore;
+
+	private static final int DEFAULT_STAGNATION_LIMIT = 20;
+	private final List<OptimizerListener> listeners = new CopyOnWriteArrayList<>();
+	private int stagnationLimit = DEFAULT_STAGNATION_LIMIT;
+
+	protected abstract List<Solution> evaluatePopulation(List<int[]> population);
 
 	protected abstract List<List<Box>> finalizeBestSolution(Solution bestSolution);
 
+	/**
+	 * Called with the elites of each generation, best first, before the next
+	 * generation is bred from them.
+	 */
+	protected void retainElites(List<Solution> elites) {
+		// Default no-op
+	}
+
+	/**
+	 * Frees the checkpoints of solutions that are not kept as elites.
+	 */
+	static void dropCheckpoints(List<Solution> solutions) {
+		for (Solution solution : solutions) {
+			solution.checkpoints = null;
+		}
+	}
+
 	public abstract double rate(List<List<Box>> solution, Bin bin);
 
 	// ---- Initialize ----
@@ -39,7 +166,8 @@ public abstract class Optimizer<S> {
 			int populationSize,
 			int eliteCount, boolean threaded) {
 		this.solverSource = solverSource;
-		this.boxes = boxes;
+		splitBoxes(boxes);
+		boxes = this.boxes;
 		this.bin = bin;
 		this.growingBin = growingBin;
 		this.growAxis = growAxis;
@@ -47,6 +175,20 @@ public abstract class Optimizer<S> {
 		this.populationSize = populationSize;
 		this.eliteCount = eliteCount;
 		this.threaded = threaded;
+		this.fitnessCache = new FitnessCache(boxes, Math.max(fitnessCacheCapacity, populationSize * 4));
+		this.operators = customOperators != null ? new OperatorPortfolio(customOperators)
+				: OperatorPortfolio.standard(BoxTypes.of(boxes));
+		this.childOperators = null;
+		this.lastBest = null;
+		this.lastBestKey = null;
+		this.generation = 0;
+		this.cutoff = Double.NaN;
+		this.localSearchImprovements = 0;
+		this.surrogate = surrogatePoolFactor > 1 ? new SurrogateModel(boxes, bin, populationSize * 2) : null;
+		this.childFeatures = null;
+		releaseTierEvaluators();
+		this.lowerBounds = new LowerBounds(allBoxes, bin, growingBin, growAxis, rotationAxes);
+		this.gap = Double.NaN;
 
 		generateInitialPopulation();
 	}
@@ -54,143 +196,1089 @@ public abstract class Optimizer<S> {
 	public void generateInitialPopulation() {
 		boxOrders = new ArrayList<>();
 
-		List<Integer> base = new ArrayList<>();
-		for (int i = 0; i < boxes.size(); i++)
-			base.add(i);
-
 		// // First order: growing by volume
-		List<Integer> growingOrder = new ArrayList<>(base);
-		Collections.sort(growingOrder,
-				(i1, i2) -> Double.compare(boxes.get(i1).getVolume(),
-						boxes.get(i2).getVolume()));
-		boxOrders.add(growingOrder);
+		boxOrders.add(sortedOrder(Box::getVolume, false));
 
 		// Second order: shrinking by volume
-		List<Integer> shrinkingOrder = new ArrayList<>(base);
-		Collections.sort(shrinkingOrder,
-				(i1, i2) -> Double.compare(boxes.get(i2).getVolume(), boxes.get(i1).getVolume()));
-		boxOrders.add(shrinkingOrder);
+		boxOrders.add(sortedOrder(Box::getVolume, true));
 
 		// third order: shrinking by longest side
-		List<Integer> shrinkingLongestOrder = new ArrayList<>(base);
-		Collections.sort(shrinkingLongestOrder,
-				(i1, i2) -> Double.compare(boxes.get(i2).getLongestSide(), boxes.get(i1).getLongestSide()));
-		boxOrders.add(shrinkingLongestOrder);
+		boxOrders.add(sortedOrder(Box::getLongestSide, true));
+
+		// Then the best orders of past runs on this or a similar instance
+		List<int[]> warm = new ArrayList<>();
+		if (solutionStore != null) {
+			for (int[] order : solutionStore.lookup(allBoxes, bin, growingBin, growAxis, rotationAxes,
+					populationSize / 2)) {
+				// Without the fixed suffix of small boxes
+				warm.add(Arrays.stream(order).filter(i -> i < boxes.size()).toArray());
+			}
+		}
+		boxOrders.addAll(warm);
 
 		// Remaining orders: random
-		for (int i = 2; i < populationSize; i++) {
-			List<Integer> order = new ArrayList<>(base);
-			Collections.shuffle(order, random);
+		SplittableRandom random = new SplittableRandom(seed);
+		for (int i = 2 + warm.size(); i < populationSize; i++) {
+			int[] order = identityOrder(boxes.size());
+			for (int k = order.length - 1; k > 0; k--) {
+				swap(order, k, random.nextInt(k + 1));
+			}
 			boxOrders.add(order);
 		}
 
 		this.populationSize = boxOrders.size();
 	}
 
+	private int[] sortedOrder(ToDoubleFunction<Box> key, boolean descending) {
+		return IntStream.range(0, boxes.size()).boxed()
+				.sorted(Comparator.comparingDouble(i -> (descending ? -1 : 1) * key.applyAsDouble(boxes.get(i))))
+				.mapToInt(Integer::intValue)
+				.toArray();
+	}
+
 	// ---- Main GA Logic ----
 	public List<List<Box>> executeNextGeneration() {
 
 		// 1. Evaluate current population
-		List<Solution> scored = evaluatePopulation(boxOrders);
+		List<Solution> evaluated = evaluateAligned(boxOrders);
+		creditOperators(evaluated);
+		trainSurrogate(evaluated);
+		List<Solution> scored = new ArrayList<>(evaluated);
+		scored.removeIf(Objects::isNull);
 
 		// 2. Sort best to worst
-		if (!growingBin) {
-			scored.sort(Comparator.comparingDouble(s -> -s.score));
-		} else {
-			scored.sort(Comparator.comparingDouble(s -> s.score));
+		sortBestFirst(scored);
+
+		int parents = Math.min(eliteCount, scored.size());
+		cutoff = parents > 0 && parents == eliteCount ? scored.get(parents - 1).score : Double.NaN;
+		retainElites(scored.subList(0, parents));
+		dropCheckpoints(scored.subList(parents, scored.size()));
+
+		// 2b. Polish the elites
+		if (localSearchMoves > 0 && improveElites(scored, parents)) {
+			sortBestFirst(scored);
+			cutoff = parents == eliteCount ? scored.get(parents - 1).score : Double.NaN;
+			retainElites(scored.subList(0, parents));
 		}
 
-		// 3. Get best solution of this generation
+		// 3. Get best solution of this generation, packed again only if it changed
 		Solution bestOfGen = scored.get(0);
-		List<List<Box>> bestSolutionPack = finalizeBestSolution(bestOfGen);
+		FitnessCache.Key bestKey = fitnessCache.key(bestOfGen.order);
+		List<List<Box>> bestSolutionPack;
+		if (lastBest != null && bestKey.equals(lastBestKey)) {
+			bestSolutionPack = lastBest.solved;
+		} else {
+			bestSolutionPack = finalizeBestSolution(bestOfGen);
+			lastBest = new Solution(bestOfGen.order, bestOfGen.score, bestSolutionPack);
+			lastBestKey = bestKey;
+		}
 
 		// ---------------------------------------------------------
 		// Build next generation
 		// ---------------------------------------------------------
-		List<List<Integer>> nextGen = new ArrayList<>();
+		int[][] nextGen = new int[Math.max(populationSize, parents)][];
+		int[] nextOperators = new int[nextGen.length];
+		double[] nextParentScores = new double[nextGen.length];
 
 		// Keep elite
-		for (int i = 0; i < eliteCount && i < scored.size(); i++) {
-			nextGen.add(new ArrayList<>(scored.get(i).order));
-		}
-
-		// Fill remaining
-		while (nextGen.size() < populationSize) {
-			if (random.nextBoolean()) {
-				// crossover
-				int idx1 = random.nextInt(Math.min(eliteCount, scored.size()));
-				int idx2 = random.nextInt(Math.min(eliteCount, scored.size()));
-				List<Integer> p1 = scored.get(idx1).order;
-				List<Integer> p2 = scored.get(idx2).order;
-				nextGen.add(crossOver(p1, p2));
-			} else {
-				// mutation
-				int idx = random.nextInt(Math.min(eliteCount, scored.size()));
-				List<Integer> p = scored.get(idx).order;
-				nextGen.add(mutate(p));
+		for (int i = 0; i < parents; i++) {
+			nextGen[i] = scored.get(i).order.clone();
+			nextOperators[i] = -1;
+		}
+
+		// Fill remaining, each child from its own random stream. With a trained
+		// surrogate or evaluation tiers, breed a larger pool and keep the
+		// children predicted or scored best
+		int childCount = nextGen.length - parents;
+		boolean screening = surrogate != null && surrogate.isReady();
+		int tierCount = tiers.isEmpty() ? childCount : tierPoolSize(childCount);
+		int poolSize = screening ? tierCount * surrogatePoolFactor : tierCount;
+		int[][] pool = new int[poolSize][];
+		int[] poolOperators = new int[poolSize];
+		double[] poolParentScores = new double[poolSize];
+		double[][] poolFeatures = new double[poolSize][];
+		double[] poolPredictions = new double[poolSize];
+		IntStream children = IntStream.range(0, poolSize);
+		if (threaded) {
+			children = children.parallel();
+		}
+		long generationSeed = mix(seed + 0x9E3779B97F4A7C15L * (generation + 1));
+		children.forEach(j -> {
+			SplittableRandom random = new SplittableRandom(mix(generationSeed + parents + j));
+			int operator = operators.select(random);
+			Solution p1 = scored.get(random.nextInt(parents));
+			Solution p2 = operators.get(operator).isCrossover() ? scored.get(random.nextInt(parents)) : p1;
+			Solution better = isBetter(p2.score, p1.score) ? p2 : p1;
+			pool[j] = operators.get(operator).apply(p1.order, p2.order, random);
+			poolOperators[j] = operator;
+			poolParentScores[j] = better.score;
+			if (surrogate != null) {
+				poolFeatures[j] = surrogate.features(pool[j], better.order, better.score);
+				poolPredictions[j] = screening ? surrogate.predict(poolFeatures[j]) : Double.NaN;
 			}
+		});
+		Integer[] chosen = new Integer[poolSize];
+		for (int j = 0; j < poolSize; j++) {
+			chosen[j] = j;
 		}
+		if (screening) {
+			Arrays.sort(chosen, (a, b) -> isBetter(poolPredictions[a], poolPredictions[b]) ? -1
+					: isBetter(poolPredictions[b], poolPredictions[a]) ? 1 : 0);
+		}
+		if (!tiers.isEmpty()) {
+			chosen = screenWithTiers(pool, Arrays.copyOf(chosen, tierCount), childCount);
+		}
+		double[][] nextFeatures = new double[nextGen.length][];
+		double[] nextPredictions = new double[nextGen.length];
+		Arrays.fill(nextPredictions, Double.NaN);
+		for (int k = 0; k < childCount; k++) {
+			int j = chosen[k];
+			nextGen[parents + k] = pool[j];
+			nextOperators[parents + k] = poolOperators[j];
+			nextParentScores[parents + k] = poolParentScores[j];
+			nextFeatures[parents + k] = poolFeatures[j];
+			nextPredictions[parents + k] = poolPredictions[j];
+		}
+		generation++;
 
 		// Replace population
-		this.boxOrders = nextGen;
+		this.boxOrders = new ArrayList<>(List.of(nextGen));
+		this.childOperators = nextOperators;
+		this.parentScores = nextParentScores;
+		this.childFeatures = nextFeatures;
+		this.childPredictions = nextPredictions;
 
 		return bestSolutionPack;
 	}
 
-	protected List<Integer> crossOver(List<Integer> parent1, List<Integer> parent2) {
-		int size = parent1.size();
-		int cut1 = random.nextInt(size);
-		int cut2 = random.nextInt(size);
+	/**
+	 * Replaces a member of the population with an order bred elsewhere, such as
+	 * a migrant. No operator is credited for it and the surrogate does not
+	 * train on it.
+	 */
+	void replaceMember(int index, int[] order) {
+		boxOrders.set(index, order);
+		if (childOperators != null && index < childOperators.length) {
+			childOperators[index] = -1;
+			parentScores[index] = Double.NaN;
+		}
+		if (childFeatures != null && index < childFeatures.length) {
+			childFeatures[index] = null;
+			childPredictions[index] = Double.NaN;
+		}
+	}
 
-		if (cut1 > cut2) {
-			int t = cut1;
-			cut1 = cut2;
-			cut2 = t;
+	private void sortBestFirst(List<Solution> scored) {
+		if (!growingBin) {
+			scored.sort(Comparator.comparingDouble(s -> -s.score));
+		} else {
+			scored.sort(Comparator.comparingDouble(s -> s.score));
 		}
+	}
 
-		List<Integer> child = new ArrayList<>(Collections.nCopies(size, null));
+	/**
+	 * One step of local search: tries localSearchMoves swap and insertion
+	 * neighbours of each of the first count solutions, all in one batch, and
+	 * replaces a solution with its best neighbour if that is better. Neighbours
+	 * share the prefix before the first moved position with their elite, so
+	 * solvers that can resume only pack the rest.
+	 *
+	 * @return whether any solution was replaced
+	 */
+	private boolean improveElites(List<Solution> scored, int count) {
+		SplittableRandom random = new SplittableRandom(mix(seed ^ 0xD1B54A32D192ED03L * (generation + 1)));
+		List<int[]> neighbours = new ArrayList<>(count * localSearchMoves);
+		for (int e = 0; e < count; e++) {
+			int[] elite = scored.get(e).order;
+			for (int m = 0; m < localSearchMoves; m++) {
+				neighbours.add(localMoves[m % localMoves.length].apply(elite, elite, random));
+			}
+		}
 
-		// 1. Copy the slice from parent2
-		for (int i = cut1; i <= cut2; i++) {
-			child.set(i, parent2.get(i));
+		List<Solution> evaluated = evaluateAligned(neighbours);
+		// Keep the elites distinct
+		Set<FitnessCache.Key> elites = new HashSet<>();
+		for (int e = 0; e < count; e++) {
+			elites.add(fitnessCache.key(scored.get(e).order));
+		}
+		boolean improved = false;
+		for (int e = 0; e < count; e++) {
+			Solution best = scored.get(e);
+			for (int m = 0; m < localSearchMoves; m++) {
+				Solution neighbour = evaluated.get(e * localSearchMoves + m);
+				if (neighbour != null && isBetter(neighbour.score, best.score)
+						&& !elites.contains(fitnessCache.key(neighbour.order))) {
+					best = neighbour;
+				}
+			}
+			if (best != scored.get(e)) {
+				elites.add(fitnessCache.key(best.order));
+				scored.set(e, best);
+				localSearchImprovements++;
+				improved = true;
+			}
 		}
+		return improved;
+	}
 
-		// 2. Fill remaining positions from parent1 in order
-		int fillPos = (cut2 + 1) % size;
+	/**
+	 * Children to breed so that the evaluation tiers leave childCount of them.
+	 */
+	private int tierPoolSize(int childCount) {
+		double kept = 1;
+		for (EvaluationTier<?> tier : tiers) {
+			kept *= tier.getKeepFraction();
+		}
+		return (int) Math.ceil(childCount / kept);
+	}
 
-		for (int i = 0; i < size; i++) {
-			int gene = parent1.get((cut2 + 1 + i) % size);
+	/**
+	 * Passes the candidates, indices into pool, through the evaluation tiers.
+	 * Each tier keeps its best scored share of them, but at least count.
+	 *
+	 * @return the remaining candidates, best first
+	 */
+	private Integer[] screenWithTiers(int[][] pool, Integer[] candidates, int count) {
+		if (tierEvaluators == null) {
+			tierEvaluators = new ArrayList<>();
+			for (EvaluationTier<?> tier : tiers) {
+				tierEvaluators.add(tier.createEvaluator(this));
+			}
+		}
+		for (int t = 0; t < tiers.size(); t++) {
+			long start = System.nanoTime();
+			List<int[]> orders = new ArrayList<>(candidates.length);
+			for (int j : candidates) {
+				orders.add(pool[j]);
+			}
+			// Unevaluable orders rank last
+			List<Solution> evaluated = tierEvaluators.get(t).evaluateAligned(orders);
+			double[] scores = new double[candidates.length];
+			Integer[] ranking = new Integer[candidates.length];
+			for (int i = 0; i < candidates.length; i++) {
+				ranking[i] = i;
+				Solution solution = evaluated.get(i);
+				scores[i] = solution != null ? solution.score
+						: growingBin ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+			}
+			Arrays.sort(ranking, (a, b) -> isBetter(scores[a], scores[b]) ? -1 : isBetter(scores[b], scores[a]) ? 1 : 0);
+
+			int kept = (int) Math.ceil(candidates.length * tiers.get(t).getKeepFraction());
+			kept = Math.min(candidates.length, Math.max(count, kept));
+			Integer[] promoted = new Integer[kept];
+			for (int k = 0; k < kept; k++) {
+				promoted[k] = candidates[ranking[k]];
+			}
+			tiers.get(t).record(candidates.length, kept, System.nanoTime() - start);
+			candidates = promoted;
+		}
+		return candidates;
+	}
+
+	private void releaseTierEvaluators() {
+		if (tierEvaluators != null) {
+			for (Optimizer<?> evaluator : tierEvaluators) {
+				evaluator.release();
+			}
+			tierEvaluators = null;
+		}
+	}
 
-			if (!child.contains(gene)) {
-				child.set(fillPos, gene);
-				fillPos = (fillPos + 1) % size;
+	/**
+	 * Fits the surrogate to the real scores of the children, and records how
+	 * well it ranked them if it screened them.
+	 */
+	private void trainSurrogate(List<Solution> evaluated) {
+		if (surrogate == null || childFeatures == null || childFeatures.length != evaluated.size()) {
+			return;
+		}
+		List<double[]> ranked = new ArrayList<>();
+		for (int i = 0; i < childFeatures.length; i++) {
+			Solution child = evaluated.get(i);
+			if (childFeatures[i] == null || child == null) {
+				continue;
 			}
+			surrogate.train(childFeatures[i], child.score);
+			if (!Double.isNaN(childPredictions[i])) {
+				ranked.add(new double[] { childPredictions[i], child.score });
+			}
+		}
+		double[] predicted = new double[ranked.size()];
+		double[] actual = new double[ranked.size()];
+		for (int i = 0; i < ranked.size(); i++) {
+			predicted[i] = ranked.get(i)[0];
+			actual[i] = ranked.get(i)[1];
+		}
+		surrogate.recordRanking(predicted, actual);
+	}
+
+	/**
+	 * Credits each child's operator with its gain over its best parent. Only the
+	 * first of several identical children is charged for the evaluation.
+	 */
+	private void creditOperators(List<Solution> evaluated) {
+		if (childOperators == null || childOperators.length != evaluated.size()) {
+			return;
+		}
+		Set<Solution> charged = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (int i = 0; i < childOperators.length; i++) {
+			Solution child = evaluated.get(i);
+			if (childOperators[i] < 0 || child == null) {
+				continue;
+			}
+			double gain = growingBin ? parentScores[i] - child.score : child.score - parentScores[i];
+			if (charged.add(child)) {
+				operators.record(childOperators[i], gain, child.placed, child.nanos);
+			} else {
+				operators.record(childOperators[i], gain, 0, 0);
+			}
+		}
+	}
+
+	/**
+	 * Evaluates only the orders whose score is not cached yet, each distinct one
+	 * once. Solutions answered from the cache have no packed boxes, except for
+	 * the previous best which is kept whole.
+	 */
+	protected List<Solution> evaluateCached(List<int[]> population) {
+		List<Solution> scored = evaluateAligned(population);
+		scored.removeIf(Objects::isNull);
+		return scored;
+	}
+
+	/**
+	 * Like {@link #evaluateCached}, but the result has one entry per order, null
+	 * where the evaluation failed.
+	 */
+	protected List<Solution> evaluateAligned(List<int[]> population) {
+		List<FitnessCache.Key> keys = new ArrayList<>(population.size());
+		Map<FitnessCache.Key, Solution> known = new HashMap<>();
+		List<int[]> pending = new ArrayList<>();
+		for (int[] order : population) {
+			FitnessCache.Key key = fitnessCache.key(order);
+			keys.add(key);
+			if (known.containsKey(key)) {
+				fitnessCache.recordHit();
+				continue;
+			}
+			Double score = fitnessCache.get(key);
+			if (score == null) {
+				known.put(key, null);
+				pending.add(order);
+			} else if (key.equals(lastBestKey)) {
+				known.put(key, lastBest);
+			} else {
+				known.put(key, new Solution(order, score, null));
+			}
+		}
+
+		if (!pending.isEmpty()) {
+			for (Solution solution : evaluatePopulation(pending)) {
+				FitnessCache.Key key = fitnessCache.key(solution.order);
+				// Only complete packings score the order itself
+				if (!solution.aborted) {
+					fitnessCache.put(key, solution.score);
+				}
+				known.put(key, solution);
+			}
+		}
+
+		List<Solution> scored = new ArrayList<>(population.size());
+		for (FitnessCache.Key key : keys) {
+			scored.add(known.get(key)); // null if its evaluation failed
 		}
+		return scored;
+	}
+
+	/**
+	 * Upper bound on the number of cached scores, applied on the next
+	 * {@link #initialize}.
+	 */
+	public void setFitnessCacheCapacity(int capacity) {
+		this.fitnessCacheCapacity = capacity;
+	}
+
+	public FitnessCache getFitnessCache() {
+		return fitnessCache;
+	}
+
+	/**
+	 * Order crossover, see {@link OrderCrossover}.
+	 */
+	protected int[] crossOver(int[] parent1, int[] parent2, SplittableRandom random) {
+		return OrderCrossover.cross(parent1, parent2, random);
+	}
+
+	/**
+	 * Swaps two random genes of the order in place.
+	 */
+	protected void mutate(int[] order, SplittableRandom random) {
+		SwapMove.swap(order, random);
+	}
+
+	/**
+	 * Use these operators instead of the standard portfolio, from the next
+	 * {@link #initialize} on.
+	 */
+	public void setOperators(List<PermutationOperator> operators) {
+		this.customOperators = operators;
+	}
+
+	public OperatorPortfolio getOperatorPortfolio() {
+		return operators;
+	}
+
+	/**
+	 * Try this many swap and insertion neighbours of each elite after every
+	 * generation, keeping the best if it improves the elite. 0 turns local
+	 * search off.
+	 */
+	public void setLocalSearch(int moves) {
+		this.localSearchMoves = Math.max(0, moves);
+	}
 
-		return child;
+	/**
+	 * Screen children with a {@link SurrogateModel}: once it has learned from
+	 * two generations of real scores, breed poolFactor times as many children
+	 * and pack only the ones it predicts best. 0 or 1 turns screening off.
+	 * Applied on the next {@link #initialize}.
+	 */
+	public void setSurrogateScreening(int poolFactor) {
+		this.surrogatePoolFactor = poolFactor;
 	}
 
-	protected List<Integer> mutate(List<Integer> order) {
-		List<Integer> mutatedOrder = new ArrayList<>(order);
-		int index1 = random.nextInt(mutatedOrder.size());
-		int index2 = random.nextInt(mutatedOrder.size());
-		while (index1 == index2) {
-			index2 = random.nextInt(mutatedOrder.size());
+	/**
+	 * The surrogate, for its ranking telemetry, or null when screening is off.
+	 */
+	public SurrogateModel getSurrogate() {
+		return surrogate;
+	}
+
+	/**
+	 * Score children with a cheaper evaluation first and pack only the best of
+	 * them, see {@link EvaluationTier}. Tiers apply in the order they are added.
+	 *
+	 * @throws UnsupportedOperationException if this optimizer does not screen
+	 *                                       children, see
+	 *                                       {@link #supportsEvaluationTiers}
+	 */
+	public void addEvaluationTier(EvaluationTier<?> tier) {
+		if (!supportsEvaluationTiers()) {
+			throw new UnsupportedOperationException(
+					getClass().getSimpleName() + " does not support evaluation tiers");
 		}
-		Collections.swap(mutatedOrder, index1, index2);
-		return mutatedOrder;
+		tiers.add(tier);
+		releaseTierEvaluators();
+	}
+
+	public void clearEvaluationTiers() {
+		tiers.clear();
+		releaseTierEvaluators();
+	}
+
+	/**
+	 * Whether children are screened by the evaluation tiers before they are
+	 * packed.
+	 */
+	public boolean supportsEvaluationTiers() {
+		return true;
+	}
+
+	public List<EvaluationTier<?>> getEvaluationTiers() {
+		return Collections.unmodifiableList(tiers);
+	}
+
+	/**
+	 * Number of elites replaced by a better neighbour so far.
+	 */
+	public long getLocalSearchImprovements() {
+		return localSearchImprovements;
+	}
+
+	protected int getEliteCount() {
+		return eliteCount;
+	}
+
+	/**
+	 * Whether score a is better than score b for the current bin mode.
+	 */
+	protected boolean isBetter(double a, double b) {
+		return growingBin ? a < b : a > b;
+	}
+
+	public LowerBounds getLowerBounds() {
+		return lowerBounds;
+	}
+
+	/**
+	 * Optimality gap of the best packing found by {@link #optimize}, NaN before
+	 * the first.
+	 */
+	public double getGap() {
+		return gap;
+	}
+
+	/**
+	 * Whether the best packing found by {@link #optimize} reaches the lower
+	 * bound, so no better one exists.
+	 */
+	public boolean isOptimal() {
+		return gap == 0;
+	}
+
+	/**
+	 * Whether {@link #optimize} stops once its best packing reaches the lower
+	 * bound, on by default.
+	 */
+	public void setStopWhenOptimal(boolean stopWhenOptimal) {
+		this.stopWhenOptimal = stopWhenOptimal;
+	}
+
+	/**
+	 * Runs generations on a new thread until the deadline, maxGenerations, a
+	 * packing that reaches the lower bound or a stop request, and completes with
+	 * the best packing found. The future
+	 * completes no later than shortly after the deadline, with the best packing
+	 * so far, even if a solve cannot be interrupted. Cancelling the future stops
+	 * the run. A null deadline runs until maxGenerations or a stop request.
+	 * Both the deadline and any stop request are cleared once the run ends.
+	 *
+	 * Progress is reported to the registered {@link OptimizerListener}s.
+	 */
+	public CompletableFuture<List<List<Box>>> optimize(Instant deadline, int maxGenerations) {
+		CompletableFuture<List<List<Box>>> future = new CompletableFuture<>();
+		AtomicReference<List<List<Box>>> best = new AtomicReference<>();
+		if (checkpointFile != null) {
+			requireCheckpoints();
+		}
+		cancelled = false;
+		gap = Double.NaN;
+		setDeadline(deadline);
+		AtomicBoolean ended = new AtomicBoolean();
+
+		Thread runner = new Thread(() -> {
+			long start = System.nanoTime();
+			double bestScore = 0;
+			int sinceImprovement = 0;
+			int generations = 0;
+			RuntimeException failure = null;
+			try {
+				for (int g = 1; g <= maxGenerations && !isStopRequested() && !(stopWhenOptimal && isOptimal()); g++) {
+					List<List<Box>> packed = executeNextGeneration();
+					generations = g;
+					double score = rate(packed, bin);
+					long elapsed = System.nanoTime() - start;
+					if (best.get() == null || isBetter(score, bestScore)) {
+						best.set(packed);
+						bestScore = score;
+						sinceImprovement = 0;
+						gap = lowerBounds.gap(packed);
+						publish(new OptimizerEvent.NewBest(g, bestScore, elapsed, gap, packed));
+					} else if (++sinceImprovement % stagnationLimit == 0) {
+						publish(new OptimizerEvent.Stagnation(g, bestScore, elapsed, gap, sinceImprovement));
+					}
+					publish(new OptimizerEvent.GenerationFinished(g, bestScore, elapsed, gap, score));
+					// A generation cut short by a stop request is not worth resuming from
+					if (checkpointFile != null && g % checkpointInterval == 0 && !isStopRequested()) {
+						try {
+							saveCheckpoint(checkpointFile);
+						} catch (IOException e) {
+							System.err.println("Could not save checkpoint: " + e);
+						}
+					}
+				}
+				if (generations > 0) {
+					storeSolutions();
+				}
+			} catch (RuntimeException e) {
+				failure = e;
+			}
+			// The deadline and stop request were this run's, later generations run freely
+			synchronized (runLock) {
+				ended.set(true);
+				cancelled = false;
+				hasDeadline = false;
+			}
+			if (failure != null && best.get() == null) {
+				future.completeExceptionally(failure);
+			} else {
+				if (failure != null) {
+					System.err.println("Optimization stopped early: " + failure);
+				}
+				future.complete(best.get());
+			}
+			publish(new OptimizerEvent.Finished(generations, bestScore, System.nanoTime() - start, gap));
+		}, "optimizer");
+		runner.setDaemon(true);
+		runner.start();
+
+		if (deadline != null) {
+			long remaining = Math.max(0, Duration.between(Instant.now(), deadline).toNanos());
+			CompletableFuture.delayedExecutor(remaining + STOP_MARGIN_NANOS, TimeUnit.NANOSECONDS).execute(() -> {
+				cancelRun(ended);
+				if (best.get() != null) {
+					future.complete(best.get());
+				} else {
+					future.completeExceptionally(new TimeoutException("No packing was found before the deadline"));
+				}
+			});
+		}
+		future.whenComplete((result, error) -> {
+			if (future.isCancelled()) {
+				cancelRun(ended);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Stops a run of {@link #optimize} unless it already ended, so that a late
+	 * timeout does not stop the generations run after it.
+	 */
+	private void cancelRun(AtomicBoolean ended) {
+		synchronized (runLock) {
+			if (!ended.get()) {
+				cancel();
+			}
+		}
+	}
+
+	public CompletableFuture<List<List<Box>>> optimize(Instant deadline) {
+		return optimize(deadline, Integer.MAX_VALUE);
+	}
+
+	public void addListener(OptimizerListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(OptimizerListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Generations without a better packing after which listeners are told the
+	 * run stagnates.
+	 */
+	public void setStagnationLimit(int generations) {
+		this.stagnationLimit = Math.max(1, generations);
+	}
+
+	private void publish(OptimizerEvent event) {
+		for (OptimizerListener listener : listeners) {
+			try {
+				if (event instanceof OptimizerEvent.NewBest) {
+					listener.newBest((OptimizerEvent.NewBest) event);
+				} else if (event instanceof OptimizerEvent.Stagnation) {
+					listener.stagnated((OptimizerEvent.Stagnation) event);
+				} else if (event instanceof OptimizerEvent.Finished) {
+					listener.finished((OptimizerEvent.Finished) event);
+				} else {
+					listener.generationFinished((OptimizerEvent.GenerationFinished) event);
+				}
+			} catch (RuntimeException e) {
+				System.err.println("Optimizer listener failed: " + e);
+			}
+		}
+	}
+
+	/**
+	 * Solves running past the deadline stop early, and so do the generations
+	 * run by {@link #optimize}. null for no deadline.
+	 */
+	public void setDeadline(Instant deadline) {
+		if (deadline == null) {
+			hasDeadline = false;
+			return;
+		}
+		deadlineNanos = System.nanoTime() + Duration.between(Instant.now(), deadline).toNanos();
+		hasDeadline = true;
+	}
+
+	/**
+	 * Asks running solves to stop. Generations still complete, with the orders
+	 * that were cut short scored as worst, so call this only to wind down.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isStopRequested() {
+		if (cancelled || (hasDeadline && System.nanoTime() - deadlineNanos >= 0)) {
+			return true;
+		}
+		BooleanSupplier parent = parentStop;
+		return parent != null && parent.getAsBoolean();
+	}
+
+	/**
+	 * Also stop when the given condition holds, for optimizers run by another
+	 * one.
+	 */
+	void stopWith(BooleanSupplier parent) {
+		this.parentStop = parent;
+	}
+
+	/**
+	 * Have {@link #optimize} save a checkpoint to file after every given number
+	 * of generations. A null file turns it off.
+	 *
+	 * @throws UnsupportedOperationException if this optimizer cannot save its
+	 *                                       state
+	 */
+	public void setCheckpointing(Path file, int everyGenerations) {
+		if (file != null) {
+			requireCheckpoints();
+		}
+		this.checkpointFile = file;
+		this.checkpointInterval = Math.max(1, everyGenerations);
+	}
+
+	/**
+	 * Seed the initial population with the best orders of past runs from the
+	 * store, up to half of it, from the next {@link #initialize} on, and have
+	 * {@link #optimize} add the best orders of each run to it. Null turns it
+	 * off.
+	 */
+	public void setSolutionStore(SolutionStore store) {
+		this.solutionStore = store;
+	}
+
+	public SolutionStore getSolutionStore() {
+		return solutionStore;
+	}
+
+	/**
+	 * Adds the best of the {@link #scoredOrders} to the solution store.
+	 */
+	public void storeSolutions() {
+		if (solutionStore == null || boxOrders == null) {
+			return;
+		}
+		List<Solution> scored = new ArrayList<>(scoredOrders());
+		if (scored.isEmpty()) {
+			return;
+		}
+		// Unscored orders last, otherwise in the order given, elites first
+		scored.sort((a, b) -> Double.isNaN(a.score) || Double.isNaN(b.score)
+				? Boolean.compare(Double.isNaN(a.score), Double.isNaN(b.score))
+				: isBetter(a.score, b.score) ? -1 : isBetter(b.score, a.score) ? 1 : 0);
+		int count = Math.min(SolutionStore.MAX_SOLUTIONS, scored.size());
+		List<int[]> orders = new ArrayList<>();
+		double[] best = new double[count];
+		for (int i = 0; i < count; i++) {
+			orders.add(fullOrder(scored.get(i).order));
+			best[i] = scored.get(i).score;
+		}
+		solutionStore.save(allBoxes, bin, growingBin, growAxis, rotationAxes, orders, best);
+	}
+
+	/**
+	 * The orders of the current population with their scores from the fitness
+	 * cache, NaN if not cached. Optimizers that score elsewhere, in islands or
+	 * a backend, collect the scored orders from there.
+	 */
+	protected List<Solution> scoredOrders() {
+		List<Solution> scored = new ArrayList<>();
+		for (int[] order : boxOrders) {
+			Double score = fitnessCache.get(fitnessCache.key(order));
+			scored.add(new Solution(order, score != null ? score : Double.NaN, null));
+		}
+		return scored;
+	}
+
+	/**
+	 * Saves the state of the search, from which {@link #loadCheckpoint} resumes
+	 * it exactly, on this or another machine. Call it between generations, for
+	 * example from a listener. The file is written next to its destination,
+	 * forced to disk and then moved in place, so a crash leaves the previous
+	 * checkpoint intact.
+	 */
+	public void saveCheckpoint(Path file) throws IOException {
+		requireCheckpoints();
+		long estimate = 4096 + 4L * boxOrders.size() * boxes.size() + 24L * fitnessCache.size();
+		StateBuffer state = new StateBuffer((int) Math.min(Integer.MAX_VALUE - 8, estimate));
+		writeState(state);
+		ByteBuffer payload = state.contents();
+		CRC32 crc = new CRC32();
+		crc.update(payload.duplicate());
+
+		StateBuffer header = new StateBuffer(256);
+		header.putInt(CHECKPOINT_MAGIC);
+		header.putInt(CHECKPOINT_VERSION);
+		header.putString(getClass().getName());
+		header.putLong(instanceHash());
+		header.putInt(payload.remaining());
+		header.putLong(crc.getValue());
+		StateBuffer.write(file, header.contents(), payload);
+	}
+
+	/**
+	 * Restores the state saved by {@link #saveCheckpoint}. Call it after
+	 * {@link #initialize} with the same instance and settings. The following
+	 * generations are the ones the saving optimizer would have run.
+	 *
+	 * @throws IllegalArgumentException if the checkpoint is of another kind of
+	 *                                  optimizer or another instance
+	 * @throws IOException              if it cannot be read or is damaged
+	 */
+	public void loadCheckpoint(Path file) throws IOException {
+		requireCheckpoints();
+		StateBuffer in = StateBuffer.read(file);
+		try {
+			if (in.getInt() != CHECKPOINT_MAGIC) {
+				throw new IOException("Not an optimizer checkpoint: " + file);
+			}
+			int version = in.getInt();
+			if (version != CHECKPOINT_VERSION) {
+				throw new IOException("Unsupported checkpoint version " + version + ": " + file);
+			}
+			String type = in.getString();
+			if (!type.equals(getClass().getName())) {
+				throw new IllegalArgumentException("Checkpoint is of a " + type + ", not a " + getClass().getName());
+			}
+			if (in.getLong() != instanceHash()) {
+				throw new IllegalArgumentException("Checkpoint is of another instance or other settings");
+			}
+			int length = in.getInt();
+			long checksum = in.getLong();
+			ByteBuffer payload = in.remaining();
+			CRC32 crc = new CRC32();
+			crc.update(payload.duplicate());
+			if (payload.remaining() != length || crc.getValue() != checksum) {
+				throw new IOException("Checkpoint is damaged: " + file);
+			}
+		} catch (BufferUnderflowException | NegativeArraySizeException e) {
+			throw new IOException("Checkpoint is damaged: " + file, e);
+		}
+		readState(in);
+		lastBest = null;
+		lastBestKey = null;
+		gap = Double.NaN;
+	}
+
+	/**
+	 * Whether {@link #writeState} saves everything needed to resume exactly.
+	 */
+	protected boolean supportsCheckpoints() {
+		return true;
+	}
+
+	private void requireCheckpoints() {
+		if (!supportsCheckpoints()) {
+			throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support checkpoints");
+		}
+	}
+
+	/**
+	 * Writes everything the following generations depend on. Random choices are
+	 * derived from the seed and the generation, so those two stand for the
+	 * random number generator.
+	 */
+	protected void writeState(StateBuffer out) {
+		out.putLong(seed);
+		out.putInt(generation);
+		out.putDouble(cutoff);
+		out.putLong(localSearchImprovements);
+		out.putInt(populationSize);
+		out.putInt(boxOrders.size());
+		for (int[] order : boxOrders) {
+			out.putInts(order);
+		}
+		out.putBoolean(childOperators != null);
+		if (childOperators != null) {
+			out.putInts(childOperators);
+			out.putDoubles(parentScores);
+		}
+		double[] portfolio = operators.getState();
+		out.putInt(portfolio.length);
+		out.putDoubles(portfolio);
+		fitnessCache.write(out);
+
+		out.putBoolean(surrogate != null);
+		if (surrogate != null) {
+			out.putDoubles(surrogate.getState());
+			out.putBoolean(childFeatures != null);
+			if (childFeatures != null) {
+				out.putInt(childFeatures.length);
+				for (double[] features : childFeatures) {
+					out.putBoolean(features != null);
+					if (features != null) {
+						out.putDoubles(features);
+					}
+				}
+				out.putDoubles(childPredictions);
+			}
+		}
+	}
+
+	/**
+	 * Reads what {@link #writeState} wrote.
+	 */
+	protected void readState(StateBuffer in) {
+		seed = in.getLong();
+		generation = in.getInt();
+		cutoff = in.getDouble();
+		localSearchImprovements = in.getLong();
+		populationSize = in.getInt();
+		int count = in.getInt();
+		boxOrders = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			boxOrders.add(in.getInts(boxes.size()));
+		}
+		childOperators = null;
+		parentScores = null;
+		if (in.getBoolean()) {
+			childOperators = in.getInts(count);
+			parentScores = in.getDoubles(count);
+		}
+		operators.setState(in.getDoubles(in.getInt()));
+		fitnessCache.read(in);
+
+		boolean screened = in.getBoolean();
+		if (screened != (surrogate != null)) {
+			throw new IllegalArgumentException("Surrogate screening is " + (screened ? "on" : "off")
+					+ " in the checkpoint but not here");
+		}
+		childFeatures = null;
+		childPredictions = null;
+		if (screened) {
+			surrogate.setState(in.getDoubles(surrogate.getState().length));
+			if (in.getBoolean()) {
+				childFeatures = new double[in.getInt()][];
+				for (int i = 0; i < childFeatures.length; i++) {
+					childFeatures[i] = in.getBoolean() ? in.getDoubles(SurrogateModel.FEATURES) : null;
+				}
+				childPredictions = in.getDoubles(childFeatures.length);
+			}
+		}
+	}
+
+	/**
+	 * Hash of the instance and the settings a checkpoint only applies to.
+	 */
+	protected long instanceHash() {
+		long hash = mix(boxes.size());
+		for (Box box : allBoxes) {
+			hash = mix(hash ^ box.id);
+			hash = mix(hash ^ Float.floatToIntBits(box.size.x));
+			hash = mix(hash ^ Float.floatToIntBits(box.size.y));
+			hash = mix(hash ^ Float.floatToIntBits(box.size.z));
+			hash = mix(hash ^ Float.floatToIntBits(box.weight));
+		}
+		hash = mix(hash ^ Float.floatToIntBits(bin.w));
+		hash = mix(hash ^ Float.floatToIntBits(bin.h));
+		hash = mix(hash ^ Float.floatToIntBits(bin.d));
+		hash = mix(hash ^ Float.floatToIntBits(bin.maxWeight));
+		hash = mix(hash ^ (growingBin ? 1 : 0));
+		hash = mix(hash ^ Objects.hashCode(growAxis));
+		hash = mix(hash ^ Objects.hashCode(rotationAxes));
+		return mix(hash ^ eliteCount);
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public long getSeed() {
+		return seed;
 	}
 
 	public void release() {
-		// Default no-op
+		releaseTierEvaluators();
+	}
+
+	// --- Helper: view of the box list in the given index order ---
+	protected List<Box> applyOrder(int[] order) {
+		return new AbstractList<Box>() {
+			@Override
+			public Box get(int index) {
+				return index < order.length ? boxes.get(order[index]) : fillBoxes.get(index - order.length);
+			}
+
+			@Override
+			public int size() {
+				return order.length + fillBoxes.size();
+			}
+		};
+	}
+
+	/**
+	 * The order followed by the fill boxes, as indices into allBoxes.
+	 */
+	protected int[] fullOrder(int[] order) {
+		if (fillBoxes.isEmpty()) {
+			return order;
+		}
+		int[] full = Arrays.copyOf(order, allBoxes.size());
+		for (int i = order.length; i < full.length; i++) {
+			full[i] = i;
+		}
+		return full;
+	}
+
+	/**
+	 * Evolve orders of only the boxes with at least the given volume or the
+	 * given longest side, from the next {@link #initialize} on. The other boxes
+	 * are packed after them in every evaluation, largest first, so orders are
+	 * shorter and evaluations cheaper. A threshold of 0 or less is not used,
+	 * both turn hybrid mode off.
+	 */
+	public void setHybrid(double minVolume, double minSide) {
+		this.hybridVolume = minVolume;
+		this.hybridSide = minSide;
+	}
+
+	/**
+	 * Whether the box is ordered by the search rather than packed after the
+	 * ordered ones.
+	 */
+	private boolean isLarge(Box box) {
+		return (hybridVolume > 0 && box.getVolume() >= hybridVolume)
+				|| (hybridSide > 0 && box.getLongestSide() >= hybridSide);
+	}
+
+	private void splitBoxes(List<Box> boxes) {
+		this.boxes = boxes;
+		this.fillBoxes = List.of();
+		this.allBoxes = boxes;
+		if (hybridVolume <= 0 && hybridSide <= 0) {
+			return;
+		}
+		List<Box> large = new ArrayList<>();
+		List<Box> small = new ArrayList<>();
+		for (Box box : boxes) {
+			(isLarge(box) ? large : small).add(box);
+		}
+		// Too few large boxes leave nothing to search
+		if (large.size() < 2 || small.isEmpty()) {
+			return;
+		}
+		small.sort(Comparator.comparingDouble(box -> -box.getVolume()));
+		this.boxes = large;
+		this.fillBoxes = small;
+		this.allBoxes = new ArrayList<>(large);
+		this.allBoxes.addAll(small);
+	}
+
+	protected static int[] identityOrder(int size) {
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+		return order;
+	}
+
+	private static void swap(int[] order, int i, int j) {
+		int t = order[i];
+		order[i] = order[j];
+		order[j] = t;
 	}
 
-	// --- Helper: apply an index order to the box list ---
-	protected List<Box> applyOrder(List<Integer> order) {
-		List<Box> result = new ArrayList<>();
-		for (Integer idx : order)
-			result.add(boxes.get(idx));
-		return result;
+	// SplitMix64 finalizer, spreads consecutive seeds over the whole range
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
 	}
 
 }
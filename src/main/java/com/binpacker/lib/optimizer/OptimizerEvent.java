@@ -0,0 +1,60 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.List;
+
+import com.binpacker.lib.common.Box;
+
+/**
+ * Progress of a run, see {@link OptimizerListener}.
+ */
+public abstract class OptimizerEvent {
+	// Generations finished in this run
+	public final int generation;
+	// Best score of the run so far
+	public final double bestScore;
+	public final long elapsedNanos;
+	// Optimality gap of the best packing so far, see LowerBounds#gap. NaN
+	// before the first
+	public final double gap;
+
+	OptimizerEvent(int generation, double bestScore, long elapsedNanos, double gap) {
+		this.generation = generation;
+		this.bestScore = bestScore;
+		this.elapsedNanos = elapsedNanos;
+		this.gap = gap;
+	}
+
+	public static final class GenerationFinished extends OptimizerEvent {
+		// Score of the best packing of this generation
+		public final double score;
+
+		GenerationFinished(int generation, double bestScore, long elapsedNanos, double gap, double score) {
+			super(generation, bestScore, elapsedNanos, gap);
+			this.score = score;
+		}
+	}
+
+	public static final class NewBest extends OptimizerEvent {
+		public final List<List<Box>> packing;
+
+		NewBest(int generation, double bestScore, long elapsedNanos, double gap, List<List<Box>> packing) {
+			super(generation, bestScore, elapsedNanos, gap);
+			this.packing = packing;
+		}
+	}
+
+	public static final class Stagnation extends OptimizerEvent {
+		public final int generationsWithoutImprovement;
+
+		Stagnation(int generation, double bestScore, long elapsedNanos, double gap, int generationsWithoutImprovement) {
+			super(generation, bestScore, elapsedNanos, gap);
+			this.generationsWithoutImprovement = generationsWithoutImprovement;
+		}
+	}
+
+	public static final class Finished extends OptimizerEvent {
+		Finished(int generation, double bestScore, long elapsedNanos, double gap) {
+			super(generation, bestScore, elapsedNanos, gap);
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package com.binpacker.lib.optimizer;
+
+/**
+ * Receives progress of a run started with {@link Optimizer#optimize}. Methods
+ * are called on the optimizer's thread, between generations, so they should
+ * return quickly.
+ */
+public interface OptimizerListener {
+
+	default void generationFinished(OptimizerEvent.GenerationFinished event) {
+	}
+
+	/**
+	 * A generation found a better packing than all before it.
+	 */
+	default void newBest(OptimizerEvent.NewBest event) {
+	}
+
+	/**
+	 * The best score has not improved for the optimizer's stagnation limit of
+	 * generations. Called again after each further limit of generations without
+	 * improvement.
+	 */
+	default void stagnated(OptimizerEvent.Stagnation event) {
+	}
+
+	/**
+	 * The run's thread is done and no longer uses the optimizer. This may come
+	 * after the future returned by optimize() completed, if the deadline passed
+	 * during a generation.
+	 */
+	default void finished(OptimizerEvent.Finished event) {
+	}
+}
@@ -0,0 +1,303 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.optimizer.operators.InsertionMove;
+import com.binpacker.lib.optimizer.operators.PermutationOperator;
+import com.binpacker.lib.optimizer.operators.SwapMove;
+
+/**
+ * Simulated annealing over box orders with parallel tempering. Several
+ * replicas each hold one order and anneal at their own fixed temperature, from
+ * almost greedy to almost random. Each step proposes one swap or insertion
+ * move per replica and evaluates all of them as one batch, then neighbouring
+ * replicas may exchange their orders, so good orders found by hot replicas
+ * sink to the cold ones.
+ *
+ * Orders are evaluated by a backend optimizer, a {@link CPUOptimizer} which
+ * packs the replicas' moves on separate cores, or a {@link GPUOptimizer} which
+ * packs them in one launch. On the CPU a move resumes from the checkpoint of
+ * its replica's order before the first moved box.
+ *
+ * Temperatures are relative to the score of the initial best order, so the
+ * same ladder works for utilization and for extents.
+ */
+public class ParallelTemperingOptimizer<S> extends Optimizer<S> {
+
+	private static final double DEFAULT_MIN_TEMPERATURE = 1e-4;
+	private static final double DEFAULT_MAX_TEMPERATURE = 5e-2;
+
+	private final Supplier<? extends Optimizer<S>> backendFactory;
+	private final int replicaCount;
+	private final int stepsPerGeneration;
+	private double minTemperature = DEFAULT_MIN_TEMPERATURE;
+	private double maxTemperature = DEFAULT_MAX_TEMPERATURE;
+
+	private Optimizer<S> backend;
+	private final PermutationOperator[] moves = { new SwapMove(), new InsertionMove() };
+
+	// Coldest first
+	private double[] temperatures;
+	private Solution[] replicas;
+	private long[] proposed;
+	private long[] accepted;
+	private long exchangesProposed;
+	private long exchangesAccepted;
+	private double scale;
+	private SplittableRandom random;
+
+	private Solution best;
+	private Solution packedBest;
+	private List<List<Box>> packedBestSolution;
+
+	/**
+	 * @param backendFactory     creates an uninitialized optimizer used to
+	 *                           evaluate orders
+	 * @param replicaCount       number of temperatures
+	 * @param stepsPerGeneration annealing steps per call of
+	 *                           executeNextGeneration()
+	 */
+	public ParallelTemperingOptimizer(Supplier<? extends Optimizer<S>> backendFactory, int replicaCount,
+			int stepsPerGeneration) {
+		this.backendFactory = backendFactory;
+		this.replicaCount = Math.max(1, replicaCount);
+		this.stepsPerGeneration = Math.max(1, stepsPerGeneration);
+	}
+
+	public ParallelTemperingOptimizer(Supplier<? extends Optimizer<S>> backendFactory, int replicaCount) {
+		this(backendFactory, replicaCount, 10);
+	}
+
+	/**
+	 * Temperatures of the coldest and hottest replica, relative to the initial
+	 * score. Applied on the next {@link #initialize}.
+	 */
+	public void setTemperatures(double min, double max) {
+		this.minTemperature = min;
+		this.maxTemperature = Math.max(min, max);
+	}
+
+	@Override
+	public void initialize(S solverSource, List<Box> boxes, Bin bin, boolean growingBin, String growAxis,
+			List<Integer> rotationAxes, int populationSize, int eliteCount, boolean threaded) {
+		release();
+		backend = backendFactory.get();
+		backend.setSeed(seed);
+		backend.setSolutionStore(solutionStore);
+		backend.setHybrid(hybridVolume, hybridSide);
+		backend.stopWith(this::isStopRequested);
+		// Every replica's checkpoints are kept for resuming its moves
+		backend.initialize(solverSource, boxes, bin, growingBin, growAxis, rotationAxes, replicaCount, replicaCount,
+				threaded);
+
+		temperatures = new double[replicaCount];
+		for (int i = 0; i < replicaCount; i++) {
+			double t = replicaCount > 1 ? (double) i / (replicaCount - 1) : 0;
+			temperatures[i] = minTemperature * Math.pow(maxTemperature / minTemperature, t);
+		}
+		replicas = null;
+		proposed = new long[replicaCount];
+		accepted = new long[replicaCount];
+		exchangesProposed = 0;
+		exchangesAccepted = 0;
+		random = new SplittableRandom(seed);
+		best = null;
+		packedBest = null;
+		packedBestSolution = null;
+
+		super.initialize(solverSource, boxes, bin, growingBin, growAxis, rotationAxes, populationSize, eliteCount,
+				threaded);
+	}
+
+	@Override
+	public void generateInitialPopulation() {
+		boxOrders = new ArrayList<>();
+		if (replicas == null) {
+			// Start from the first orders of a GA population
+			for (int i = 0; i < replicaCount; i++) {
+				boxOrders.add(backend.boxOrders.get(i % backend.boxOrders.size()).clone());
+			}
+		} else {
+			for (Solution replica : replicas) {
+				boxOrders.add(replica.order);
+			}
+		}
+	}
+
+	@Override
+	public List<List<Box>> executeNextGeneration() {
+		if (replicas == null) {
+			startReplicas();
+		}
+		for (int s = 0; s < stepsPerGeneration && !isStopRequested(); s++) {
+			step();
+			exchange(s % 2);
+		}
+		generation++;
+		generateInitialPopulation();
+
+		// Packing the best again is only needed when it changed
+		if (best != packedBest) {
+			packedBestSolution = finalizeBestSolution(best);
+			packedBest = best;
+		}
+		return packedBestSolution;
+	}
+
+	private void startReplicas() {
+		Map<int[], Solution> scored = evaluate(boxOrders);
+		replicas = new Solution[replicaCount];
+		for (int i = 0; i < replicaCount; i++) {
+			replicas[i] = scored.get(boxOrders.get(i));
+			if (replicas[i] == null) {
+				throw new RuntimeException("Could not evaluate initial order of replica " + i);
+			}
+			offerBest(replicas[i]);
+		}
+		scale = Math.max(Math.abs(best.score), 1e-9);
+		backend.retainElites(List.of(replicas));
+	}
+
+	/**
+	 * One move per replica, evaluated together, each accepted by the Metropolis
+	 * rule at its replica's temperature.
+	 */
+	private void step() {
+		List<int[]> candidates = new ArrayList<>(replicaCount);
+		for (Solution replica : replicas) {
+			candidates.add(moves[random.nextInt(moves.length)].apply(replica.order, replica.order, random));
+		}
+		Map<int[], Solution> scored = evaluate(candidates);
+
+		for (int i = 0; i < replicaCount; i++) {
+			Solution candidate = scored.get(candidates.get(i));
+			double u = random.nextDouble();
+			if (candidate == null) {
+				continue;
+			}
+			proposed[i]++;
+			double delta = (energy(candidate.score) - energy(replicas[i].score)) / scale;
+			if (delta <= 0 || u < Math.exp(-delta / temperatures[i])) {
+				replicas[i] = candidate;
+				accepted[i]++;
+				offerBest(candidate);
+			}
+		}
+		backend.retainElites(List.of(replicas));
+	}
+
+	/**
+	 * Offers to swap the orders of replica pairs (first, first + 1),
+	 * (first + 2, first + 3), ... Alternating first between 0 and 1 lets orders
+	 * travel along the whole ladder.
+	 */
+	private void exchange(int first) {
+		for (int i = first; i + 1 < replicaCount; i += 2) {
+			exchangesProposed++;
+			double delta = (1 / temperatures[i] - 1 / temperatures[i + 1])
+					* (energy(replicas[i].score) - energy(replicas[i + 1].score)) / scale;
+			if (delta >= 0 || random.nextDouble() < Math.exp(delta)) {
+				Solution colder = replicas[i];
+				replicas[i] = replicas[i + 1];
+				replicas[i + 1] = colder;
+				exchangesAccepted++;
+			}
+		}
+	}
+
+	private double energy(double score) {
+		return growingBin ? score : -score;
+	}
+
+	private void offerBest(Solution solution) {
+		if (best == null || isBetter(solution.score, best.score)) {
+			best = solution;
+		}
+	}
+
+	/**
+	 * Scores of the given orders, by identity. Orders whose evaluation failed
+	 * are missing.
+	 */
+	private Map<int[], Solution> evaluate(List<int[]> orders) {
+		Map<int[], Solution> scored = new IdentityHashMap<>();
+		for (Solution solution : backend.evaluatePopulation(orders)) {
+			scored.put(solution.order, solution);
+		}
+		return scored;
+	}
+
+	@Override
+	public boolean supportsEvaluationTiers() {
+		// Every replica moves to its one neighbour, there is no pool to screen
+		return false;
+	}
+
+	@Override
+	protected boolean supportsCheckpoints() {
+		// Moves draw from one random stream whose position cannot be saved
+		return false;
+	}
+
+	@Override
+	protected List<Solution> evaluatePopulation(List<int[]> population) {
+		return backend.evaluatePopulation(population);
+	}
+
+	@Override
+	protected List<Solution> scoredOrders() {
+		if (replicas == null) {
+			return backend.scoredOrders();
+		}
+		// The replicas carry their scores, the best may have been left behind
+		List<Solution> scored = new ArrayList<>(List.of(replicas));
+		if (best != null && !scored.contains(best)) {
+			scored.add(best);
+		}
+		return scored;
+	}
+
+	@Override
+	protected List<List<Box>> finalizeBestSolution(Solution bestSolution) {
+		return backend.finalizeBestSolution(bestSolution);
+	}
+
+	@Override
+	public double rate(List<List<Box>> solution, Bin bin) {
+		return backend.rate(solution, bin);
+	}
+
+	public double[] getTemperatures() {
+		return temperatures.clone();
+	}
+
+	/**
+	 * Share of accepted moves of each replica, coldest first.
+	 */
+	public double[] getAcceptanceRates() {
+		double[] rates = new double[replicaCount];
+		for (int i = 0; i < replicaCount; i++) {
+			rates[i] = proposed[i] > 0 ? (double) accepted[i] / proposed[i] : 0;
+		}
+		return rates;
+	}
+
+	public double getExchangeRate() {
+		return exchangesProposed > 0 ? (double) exchangesAccepted / exchangesProposed : 0;
+	}
+
+	@Override
+	public void release() {
+		if (backend != null) {
+			backend.release();
+			backend = null;
+		}
+	}
+}
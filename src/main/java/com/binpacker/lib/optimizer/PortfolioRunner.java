@@ -0,0 +1,237 @@
+package com.binpacker.lib.optimizer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.binpacker.lib.common.Box;
+
+/**
+ * Races several optimizer configurations on the same instance, for example
+ * {@code FirstFit3D}, {@code BestFitEMS} and a GPU kernel, up to a shared
+ * deadline. Once part of the time is used, configurations whose best score
+ * falls clearly behind the leader's are cancelled. The threaded
+ * {@link CPUOptimizer}s evaluate on one shared pool, so the cores of a
+ * cancelled configuration go to the ones still running. The best packing of
+ * all of them is returned.
+ *
+ * Packings are scored with the rate of the first configuration, so the
+ * configurations are compared on the same terms. All of them must be
+ * initialized for the same instance and bin mode.
+ */
+public class PortfolioRunner {
+
+	private static final long MIN_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long MAX_CHECK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private static final class Entry {
+		final String name;
+		final Optimizer<?> optimizer;
+		CompletableFuture<List<List<Box>>> future;
+		// Best packing with its score by the first configuration's rate
+		volatile Solution best;
+		volatile boolean eliminated;
+
+		Entry(String name, Optimizer<?> optimizer) {
+			this.name = name;
+			this.optimizer = optimizer;
+		}
+	}
+
+	private final List<Entry> entries = new ArrayList<>();
+	private double warmupFraction = 0.2;
+	private double margin = 0.02;
+
+	/**
+	 * Adds a configuration, an optimizer already initialized for the instance.
+	 */
+	public void add(String name, Optimizer<?> optimizer) {
+		entries.add(new Entry(name, optimizer));
+	}
+
+	/**
+	 * Cancel configurations whose best score is more than margin, relative to
+	 * the leader's, behind it, checked from warmupFraction of the time to the
+	 * deadline on. A margin of infinity runs all of them to the end.
+	 */
+	public void setElimination(double warmupFraction, double margin) {
+		this.warmupFraction = Math.min(1, Math.max(0, warmupFraction));
+		this.margin = margin;
+	}
+
+	/**
+	 * Runs all configurations until the deadline, or until each has run
+	 * maxGenerations or was cancelled. Without a deadline none are cancelled.
+	 * Cancelling the future stops all of them.
+	 */
+	public CompletableFuture<List<List<Box>>> run(Instant deadline, int maxGenerations) {
+		if (entries.isEmpty()) {
+			throw new IllegalStateException("No configurations to run");
+		}
+		Optimizer<?> referee = entries.get(0).optimizer;
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		ScheduledThreadPoolExecutor monitor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "portfolio");
+			thread.setDaemon(true);
+			return thread;
+		});
+		CountDownLatch finished = new CountDownLatch(entries.size());
+
+		List<CompletableFuture<List<List<Box>>>> futures = new ArrayList<>();
+		for (Entry entry : entries) {
+			entry.best = null;
+			entry.eliminated = false;
+			if (entry.optimizer instanceof CPUOptimizer) {
+				((CPUOptimizer) entry.optimizer).setExecutor(pool);
+			}
+			entry.optimizer.addListener(new OptimizerListener() {
+				@Override
+				public void newBest(OptimizerEvent.NewBest event) {
+					double score = referee.rate(event.packing, referee.bin);
+					Solution best = entry.best;
+					if (best == null || referee.isBetter(score, best.score)) {
+						entry.best = new Solution(null, score, event.packing);
+					}
+				}
+
+				@Override
+				public void finished(OptimizerEvent.Finished event) {
+					entry.optimizer.removeListener(this);
+					finished.countDown();
+				}
+			});
+			entry.future = entry.optimizer.optimize(deadline, maxGenerations);
+			futures.add(entry.future);
+		}
+
+		if (deadline != null) {
+			long budget = Math.max(0, Duration.between(Instant.now(), deadline).toNanos());
+			long interval = Math.min(MAX_CHECK_NANOS, Math.max(MIN_CHECK_NANOS, budget / 50));
+			monitor.scheduleAtFixedRate(() -> eliminate(referee), (long) (budget * warmupFraction), interval,
+					TimeUnit.NANOSECONDS);
+		}
+
+		CompletableFuture<List<List<Box>>> result = new CompletableFuture<>();
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).whenComplete((done, error) -> {
+			monitor.shutdownNow();
+			Solution best = best(leader(referee));
+			if (best != null) {
+				result.complete(best.solved);
+			} else if (error != null && !(error instanceof CancellationException)) {
+				result.completeExceptionally(error);
+			} else {
+				result.completeExceptionally(new TimeoutException("No configuration found a packing"));
+			}
+		});
+		result.whenComplete((best, error) -> {
+			if (result.isCancelled()) {
+				futures.forEach(future -> future.cancel(true));
+			}
+		});
+		// The pool is shut down once no configuration can submit to it anymore
+		Thread closer = new Thread(() -> {
+			try {
+				finished.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			for (Entry entry : entries) {
+				if (entry.optimizer instanceof CPUOptimizer) {
+					((CPUOptimizer) entry.optimizer).setExecutor(null);
+				}
+			}
+			pool.shutdown();
+		}, "portfolio-closer");
+		closer.setDaemon(true);
+		closer.start();
+		return result;
+	}
+
+	/**
+	 * Cancels the configurations clearly behind the leader, and those without
+	 * a packing while others have one.
+	 */
+	private void eliminate(Optimizer<?> referee) {
+		Entry leader = leader(referee);
+		if (leader == null) {
+			return;
+		}
+		double best = leader.best.score;
+		for (Entry entry : entries) {
+			if (entry == leader || entry.eliminated || entry.future.isDone()) {
+				continue;
+			}
+			Solution own = entry.best;
+			double score = own != null ? own.score : Double.NaN;
+			double behind = Double.isNaN(score) ? Double.POSITIVE_INFINITY
+					: (referee.growingBin ? score - best : best - score) / Math.abs(best);
+			if (behind > margin) {
+				entry.eliminated = true;
+				entry.future.cancel(true);
+			}
+		}
+	}
+
+	private Entry leader(Optimizer<?> referee) {
+		Entry leader = null;
+		Solution leading = null;
+		for (Entry entry : entries) {
+			Solution best = entry.best;
+			if (best != null && (leading == null || referee.isBetter(best.score, leading.score))) {
+				leader = entry;
+				leading = best;
+			}
+		}
+		return leader;
+	}
+
+	private static Solution best(Entry entry) {
+		return entry != null ? entry.best : null;
+	}
+
+	/**
+	 * Name of the configuration with the best packing so far, or null.
+	 */
+	public String getLeader() {
+		if (entries.isEmpty()) {
+			return null;
+		}
+		Entry leader = leader(entries.get(0).optimizer);
+		return leader != null ? leader.name : null;
+	}
+
+	/**
+	 * Names of the configurations cancelled for falling behind.
+	 */
+	public List<String> getEliminated() {
+		List<String> eliminated = new ArrayList<>();
+		for (Entry entry : entries) {
+			if (entry.eliminated) {
+				eliminated.add(entry.name);
+			}
+		}
+		return eliminated;
+	}
+
+	/**
+	 * Best score of the named configuration, by the first configuration's
+	 * rate, or NaN.
+	 */
+	public double getBestScore(String name) {
+		for (Entry entry : entries) {
+			Solution best = entry.best;
+			if (entry.name.equals(name) && best != null) {
+				return best.score;
+			}
+		}
+		return Double.NaN;
+	}
+}
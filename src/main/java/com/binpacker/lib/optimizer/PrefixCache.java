@@ -0,0 +1,109 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.binpacker.lib.solver.common.PackingState;
+
+/**
+ * Packing state checkpoints of the current elite orders. Children bred from an
+ * elite usually share a long prefix with it, and can resume packing from the
+ * last checkpoint inside that prefix.
+ *
+ * Entries are replaced as a whole between generations and only read while a
+ * generation is evaluated, so lookups need no locking.
+ */
+class PrefixCache {
+
+	private static final class Entry {
+		final int[] order;
+		final List<PackingState> checkpoints;
+
+		Entry(int[] order, List<PackingState> checkpoints) {
+			this.order = order;
+			this.checkpoints = checkpoints;
+		}
+	}
+
+	private final int capacity;
+	private volatile List<Entry> entries = Collections.emptyList();
+
+	PrefixCache(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Checkpoints of the cached order sharing the longest prefix with the given
+	 * one, limited to those inside the shared prefix. The last one is the state
+	 * to resume from. Empty if no checkpoint applies.
+	 */
+	List<PackingState> lookup(int[] order) {
+		List<PackingState> best = Collections.emptyList();
+		int bestPlaced = 0;
+		for (Entry entry : entries) {
+			List<PackingState> checkpoints = entry.checkpoints;
+			int shared = commonPrefix(entry.order, order);
+			if (shared <= bestPlaced) {
+				continue;
+			}
+			int usable = 0;
+			while (usable < checkpoints.size() && checkpoints.get(usable).placed <= shared) {
+				usable++;
+			}
+			if (usable > 0 && checkpoints.get(usable - 1).placed > bestPlaced) {
+				best = checkpoints.subList(0, usable);
+				bestPlaced = checkpoints.get(usable - 1).placed;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Keeps the checkpoints of the given elites. Elites without fresh
+	 * checkpoints, because their score came from the fitness cache, keep their
+	 * previous entry.
+	 */
+	void retain(List<Solution> elites) {
+		List<Entry> retained = new ArrayList<>();
+		for (Solution elite : elites) {
+			if (retained.size() >= capacity) {
+				break;
+			}
+			if (elite.checkpoints != null && !elite.checkpoints.isEmpty()) {
+				retained.add(new Entry(elite.order, elite.checkpoints));
+				continue;
+			}
+			for (Entry entry : entries) {
+				if (Arrays.equals(entry.order, elite.order)) {
+					retained.add(entry);
+					break;
+				}
+			}
+		}
+		entries = retained;
+	}
+
+	boolean contains(int[] order) {
+		for (Entry entry : entries) {
+			if (Arrays.equals(entry.order, order)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	void clear() {
+		entries = Collections.emptyList();
+	}
+
+	private static int commonPrefix(int[] a, int[] b) {
+		int length = Math.min(a.length, b.length);
+		int i = 0;
+		while (i < length && a[i] == b[i]) {
+			i++;
+		}
+		return i;
+	}
+}
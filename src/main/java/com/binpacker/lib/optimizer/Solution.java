@@ -3,15 +3,40 @@ package com.binpacker.lib.optimizer;
 import java.util.List;
 
 import com.binpacker.lib.common.Box;
+import com.binpacker.lib.solver.common.PackingState;
 
 class Solution {
-	final List<Integer> order;
+	final int[] order;
 	final double score;
 	final List<List<Box>> solved;
+	// Packing states to resume children from, dropped once it is clear the
+	// order is not an elite
+	List<PackingState> checkpoints;
+	// Cost of the evaluation: boxes placed and time taken, both 0 when the score
+	// came from a cache
+	int placed;
+	long nanos;
+	// Bins used by the packing, 0 if unknown
+	int bins;
+	// Set if the packing stopped early, on the cutoff or a stop request. The
+	// score is then the worst possible rather than the order's own
+	boolean aborted;
 
-	Solution(List<Integer> order, double score, List<List<Box>> solved) {
+	Solution(int[] order, double score, List<List<Box>> solved) {
+		this(order, score, solved, null);
+	}
+
+	Solution(int[] order, double score, List<List<Box>> solved, List<PackingState> checkpoints) {
 		this.order = order;
 		this.score = score;
 		this.solved = solved;
+		this.checkpoints = checkpoints;
+	}
+
+	static Solution aborted(int[] order, boolean growingBin) {
+		Solution solution = new Solution(order, growingBin ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY,
+				null);
+		solution.aborted = true;
+		return solution;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,240 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.common.Space;
+import com.binpacker.lib.solver.common.PlacementUtils;
+import com.binpacker.lib.solver.common.SolverProperties;
+import com.binpacker.lib.solver.cpusolvers.SolverInterface;
+
+/**
+ * Repairs an existing packing when a few boxes are added to or removed from
+ * the manifest, instead of optimizing the whole instance again.
+ *
+ * Only bins that are touched by a change, or that are inspected as a target for
+ * an added box, get their free spaces rebuilt. Added boxes are placed best-fit
+ * with EMS. Optionally, the boxes of the touched bins can be re-optimized with a
+ * short GA run via {@link #optimizeTouched}.
+ */
+public class SolutionRepair {
+
+	private final SolverProperties properties;
+	private final Bin binTemplate;
+	private final List<Bin> bins = new ArrayList<>();
+	private final List<Double> freeVolumes = new ArrayList<>();
+	private final Set<Bin> spacesBuilt = new HashSet<>();
+	private final Set<Integer> touched = new TreeSet<>();
+
+	public SolutionRepair(List<List<Box>> solution, SolverProperties properties) {
+		this.properties = properties;
+		this.binTemplate = new Bin(0, properties.bin.w, properties.bin.h, properties.bin.d);
+		if (properties.growingBin) {
+			switch (properties.growAxis) {
+				case "x":
+					binTemplate.w = Integer.MAX_VALUE;
+					break;
+				case "y":
+					binTemplate.h = Integer.MAX_VALUE;
+					break;
+				case "z":
+					binTemplate.d = Integer.MAX_VALUE;
+					break;
+				default:
+					System.err.println("Invalid growAxis specified: " + properties.growAxis);
+					binTemplate.h = Integer.MAX_VALUE;
+					break;
+			}
+		}
+
+		for (List<Box> packed : solution) {
+			Bin bin = newBin();
+			for (Box box : packed) {
+				bin.boxes.add(box);
+				bin.weight += box.weight;
+				freeVolumes.set(bin.index, freeVolumes.get(bin.index) - box.getVolume());
+			}
+		}
+	}
+
+	/**
+	 * Removes the boxes with the given ids from whichever bins hold them.
+	 */
+	public void remove(Collection<Integer> boxIds) {
+		Set<Integer> ids = new HashSet<>(boxIds);
+		for (Bin bin : bins) {
+			boolean changed = bin.boxes.removeIf(box -> {
+				if (ids.contains(box.id)) {
+					freeVolumes.set(bin.index, freeVolumes.get(bin.index) + box.getVolume());
+					return true;
+				}
+				return false;
+			});
+			if (changed) {
+				touched.add(bin.index);
+				spacesBuilt.remove(bin);
+			}
+		}
+	}
+
+	/**
+	 * Places new boxes, largest first, into the existing bins where possible and
+	 * opens new bins for the rest.
+	 */
+	public void add(List<Box> boxes) {
+		List<Box> sorted = new ArrayList<>(boxes);
+		sorted.sort((b1, b2) -> Double.compare(b2.getVolume(), b1.getVolume()));
+
+		for (Box box : sorted) {
+			boolean placed = false;
+			for (Bin bin : bins) {
+				if (freeVolumes.get(bin.index) < box.getVolume()) {
+					continue;
+				}
+				if (properties.weight > 0 && bin.weight + box.weight > properties.weight) {
+					continue;
+				}
+				if (placeBestFit(box, bin)) {
+					placed = true;
+					break;
+				}
+			}
+
+			if (!placed && !(properties.growingBin && !bins.isEmpty())) {
+				Bin bin = newBin();
+				spacesBuilt.add(bin); // a fresh bin already has its single free space
+				placed = placeBestFit(box, bin);
+			}
+			if (!placed) {
+				System.err.println("Box too big for bin: " + box);
+			}
+		}
+	}
+
+	private boolean placeBestFit(Box box, Bin bin) {
+		if (!spacesBuilt.contains(bin)) {
+			PlacementUtils.rebuildFreeSpacesEMS(bin);
+			spacesBuilt.add(bin);
+		}
+
+		float bestScore = Float.MAX_VALUE;
+		int bestSpaceIndex = -1;
+		Box bestFittedBox = null;
+		for (int i = 0; i < bin.freeSpaces.size(); i++) {
+			Space space = bin.freeSpaces.get(i);
+			Box fittedBox = PlacementUtils.findFit(box, space, properties.rotationAxes);
+			if (fittedBox != null) {
+				float score = PlacementUtils.calculateScoreEMS(fittedBox, space);
+				if (score < bestScore) {
+					bestScore = score;
+					bestSpaceIndex = i;
+					bestFittedBox = fittedBox;
+				}
+			}
+		}
+		if (bestFittedBox == null) {
+			return false;
+		}
+
+		Box placedBox = PlacementUtils.placeBoxEMS(bestFittedBox, bin, bestSpaceIndex);
+		PlacementUtils.pruneCollidingSpacesEMS(placedBox, bin);
+		bin.utilCounter++;
+		if (bin.utilCounter > 10) {
+			PlacementUtils.pruneWrappedSpacesBinEMS(bin);
+			bin.utilCounter = 0;
+		}
+		freeVolumes.set(bin.index, freeVolumes.get(bin.index) - placedBox.getVolume());
+		touched.add(bin.index);
+		return true;
+	}
+
+	private Bin newBin() {
+		Bin bin = new Bin(bins.size(), binTemplate.w, binTemplate.h, binTemplate.d);
+		bins.add(bin);
+		freeVolumes.add(bin.getVolume());
+		return bin;
+	}
+
+	/**
+	 * Re-packs the boxes of all touched bins with a short GA run. The result is
+	 * only applied if it does not need more bins than the touched ones.
+	 */
+	public void optimizeTouched(Supplier<SolverInterface> solverSource, int generations, int populationSize,
+			int eliteCount) {
+		if (touched.isEmpty()) {
+			return;
+		}
+
+		List<Bin> touchedBins = new ArrayList<>();
+		List<Box> boxes = new ArrayList<>();
+		for (int index : touched) {
+			Bin bin = bins.get(index);
+			touchedBins.add(bin);
+			for (Box box : bin.boxes) {
+				boxes.add(new Box(box.id, new Point3f(0, 0, 0), new Point3f(box.size.x, box.size.y, box.size.z),
+						box.weight));
+			}
+		}
+		if (boxes.isEmpty()) {
+			return;
+		}
+
+		CPUOptimizer optimizer = new CPUOptimizer();
+		List<List<Box>> best = null;
+		try {
+			optimizer.initialize(solverSource, boxes, properties.bin, properties.growingBin, properties.growAxis,
+					properties.rotationAxes, populationSize, eliteCount, true);
+			for (int i = 0; i < generations; i++) {
+				best = optimizer.executeNextGeneration();
+			}
+		} finally {
+			optimizer.release();
+		}
+
+		if (best == null) {
+			return;
+		}
+		best.removeIf(List::isEmpty);
+		if (best.size() > touchedBins.size()) {
+			return;
+		}
+
+		for (int i = 0; i < touchedBins.size(); i++) {
+			Bin bin = touchedBins.get(i);
+			bin.boxes.clear();
+			if (i < best.size()) {
+				bin.boxes.addAll(best.get(i));
+			}
+			freeVolumes.set(bin.index, bin.getVolume()
+					- bin.boxes.stream().mapToDouble(Box::getVolume).sum());
+			bin.weight = (float) bin.boxes.stream().mapToDouble(box -> box.weight).sum();
+			spacesBuilt.remove(bin);
+		}
+	}
+
+	public Set<Integer> getTouchedBins() {
+		return touched;
+	}
+
+	/**
+	 * Current packing, one list of placed boxes per bin. Bins emptied by removals
+	 * are dropped.
+	 */
+	public List<List<Box>> getSolution() {
+		List<List<Box>> result = new ArrayList<>();
+		for (Bin bin : bins) {
+			if (!bin.boxes.isEmpty()) {
+				result.add(new ArrayList<>(bin.boxes));
+			}
+		}
+		return result;
+	}
+}
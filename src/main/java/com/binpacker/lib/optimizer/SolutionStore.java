@@ -0,0 +1,404 @@
+package com.binpacker.lib.optimizer;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+
+/**
+ * Best box orders of past runs on disk, to warm-start runs on the same or a
+ * similar instance, see {@link Optimizer#setSolutionStore}.
+ *
+ * Each instance is stored in its own file, named after a fingerprint of its
+ * box types with their counts, the bin, the bin mode and the rotations. Orders
+ * are stored as sequences of box types rather than box indices, so they carry
+ * over to instances with the same boxes in another order, and to similar
+ * instances: an instance with the same bin, bin mode and rotations whose box
+ * type counts overlap enough (the sum of the smaller counts over the sum of
+ * the larger ones) takes its orders, each type mapped onto its own boxes of
+ * that type. Boxes the order has no place for follow by descending volume.
+ */
+public class SolutionStore {
+
+	private static final int MAGIC = 0x42505353;
+	private static final int VERSION = 1;
+	private static final String SUFFIX = ".sol";
+
+	// Orders kept per instance, best first
+	public static final int MAX_SOLUTIONS = 8;
+
+	private final Path directory;
+	private double minSimilarity = 0.5;
+
+	public SolutionStore(Path directory) {
+		this.directory = directory;
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Overlap of box type counts, in (0, 1], an instance needs with the current
+	 * one for its orders to be used. 1 uses only the same instance.
+	 */
+	public void setMinSimilarity(double minSimilarity) {
+		if (!(minSimilarity > 0 && minSimilarity <= 1)) {
+			throw new IllegalArgumentException("Similarity must be in (0, 1]: " + minSimilarity);
+		}
+		this.minSimilarity = minSimilarity;
+	}
+
+	public double getMinSimilarity() {
+		return minSimilarity;
+	}
+
+	/**
+	 * Stores the orders with their scores, NaN if unknown, keeping the best
+	 * MAX_SOLUTIONS of them and of those stored before for the instance.
+	 * Problems are reported, they never fail the run.
+	 */
+	public synchronized void save(List<Box> boxes, Bin bin, boolean growingBin, String growAxis,
+			List<Integer> rotationAxes, List<int[]> orders, double[] scores) {
+		Entry entry = new Entry(context(bin, growingBin, growAxis, rotationAxes), boxes);
+		int[] types = entry.typesOf(boxes);
+		for (int i = 0; i < orders.size(); i++) {
+			int[] order = orders.get(i);
+			int[] sequence = new int[order.length];
+			for (int k = 0; k < order.length; k++) {
+				sequence[k] = types[order[k]];
+			}
+			entry.add(sequence, scores[i]);
+		}
+
+		Path file = directory.resolve(String.format("%016x%s", entry.fingerprint(), SUFFIX));
+		try {
+			Files.createDirectories(directory);
+			if (Files.exists(file)) {
+				Entry stored = read(file);
+				if (stored != null && stored.sameInstance(entry)) {
+					for (int i = 0; i < stored.sequences.size(); i++) {
+						entry.add(stored.sequences.get(i), stored.scores.get(i));
+					}
+				}
+			}
+			entry.keepBest(growingBin);
+			StateBuffer out = new StateBuffer(64 + 4 * entry.types.size() * 5
+					+ entry.sequences.size() * (8 + 4 * boxes.size()));
+			entry.write(out);
+			StateBuffer.write(file, out.contents());
+		} catch (IOException e) {
+			System.err.println("Could not store solutions: " + e);
+		}
+	}
+
+	/**
+	 * Up to count orders of the given boxes from stored instances, the most
+	 * similar instance and the best order first. Empty if none is similar
+	 * enough.
+	 */
+	public synchronized List<int[]> lookup(List<Box> boxes, Bin bin, boolean growingBin, String growAxis,
+			List<Integer> rotationAxes, int count) {
+		List<int[]> orders = new ArrayList<>();
+		if (count <= 0 || boxes.isEmpty() || !Files.isDirectory(directory)) {
+			return orders;
+		}
+		Entry current = new Entry(context(bin, growingBin, growAxis, rotationAxes), boxes);
+		List<Entry> similar = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+			for (Path file : files) {
+				Entry stored = read(file);
+				if (stored != null && stored.context == current.context) {
+					stored.similarity = current.similarity(stored);
+					if (stored.similarity >= minSimilarity) {
+						similar.add(stored);
+					}
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Could not read stored solutions: " + e);
+			return orders;
+		}
+		similar.sort(Comparator.comparingDouble((Entry e) -> -e.similarity));
+
+		for (Entry stored : similar) {
+			for (int[] sequence : stored.sequences) {
+				if (orders.size() == count) {
+					return orders;
+				}
+				int[] order = map(stored, sequence, boxes);
+				if (orders.stream().noneMatch(o -> Arrays.equals(o, order))) {
+					orders.add(order);
+				}
+			}
+		}
+		return orders;
+	}
+
+	/**
+	 * The stored type sequence as an order of the given boxes: each type is
+	 * replaced by the next unused box of that type, boxes left over follow by
+	 * descending volume.
+	 */
+	private static int[] map(Entry stored, int[] sequence, List<Box> boxes) {
+		Map<List<Float>, ArrayDeque<Integer>> byType = new HashMap<>();
+		for (int i = 0; i < boxes.size(); i++) {
+			byType.computeIfAbsent(typeOf(boxes.get(i)), t -> new ArrayDeque<>()).add(i);
+		}
+		int[] order = new int[boxes.size()];
+		boolean[] used = new boolean[boxes.size()];
+		int n = 0;
+		for (int type : sequence) {
+			ArrayDeque<Integer> free = byType.get(stored.types.get(type));
+			if (free != null && !free.isEmpty()) {
+				int box = free.poll();
+				used[box] = true;
+				order[n++] = box;
+			}
+		}
+		int[] rest = IntStream.range(0, boxes.size())
+				.filter(i -> !used[i])
+				.boxed()
+				.sorted(Comparator.comparingDouble(i -> -boxes.get(i).getVolume()))
+				.mapToInt(Integer::intValue)
+				.toArray();
+		System.arraycopy(rest, 0, order, n, rest.length);
+		return order;
+	}
+
+	/**
+	 * The stored instance, or null if the file is not one.
+	 */
+	private static Entry read(Path file) throws IOException {
+		StateBuffer in = StateBuffer.read(file);
+		try {
+			if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+				System.err.println("Ignoring unknown solution file: " + file);
+				return null;
+			}
+			return Entry.read(in);
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			System.err.println("Ignoring damaged solution file: " + file);
+			return null;
+		}
+	}
+
+	private static List<Float> typeOf(Box box) {
+		return Arrays.asList(box.size.x, box.size.y, box.size.z, box.weight);
+	}
+
+	private static long context(Bin bin, boolean growingBin, String growAxis, List<Integer> rotationAxes) {
+		long hash = Optimizer.mix(Float.floatToIntBits(bin.w));
+		hash = Optimizer.mix(hash ^ Float.floatToIntBits(bin.h));
+		hash = Optimizer.mix(hash ^ Float.floatToIntBits(bin.d));
+		hash = Optimizer.mix(hash ^ Float.floatToIntBits(bin.maxWeight));
+		hash = Optimizer.mix(hash ^ (growingBin ? 1 : 0));
+		if (growingBin) {
+			hash = Optimizer.mix(hash ^ Objects.hashCode(growAxis));
+		}
+		if (rotationAxes != null) {
+			for (int axis : new TreeSet<>(rotationAxes)) {
+				hash = Optimizer.mix(hash ^ (axis + 1));
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * One instance: its box types in a fixed order with their counts, and its
+	 * best orders as sequences of indices into the types.
+	 */
+	private static final class Entry {
+
+		final long context;
+		final List<List<Float>> types;
+		final int[] counts;
+		final List<int[]> sequences = new ArrayList<>();
+		final List<Double> scores = new ArrayList<>();
+		double similarity;
+
+		Entry(long context, List<Box> boxes) {
+			this.context = context;
+			Map<List<Float>, Integer> counted = new HashMap<>();
+			for (Box box : boxes) {
+				counted.merge(typeOf(box), 1, Integer::sum);
+			}
+			this.types = new ArrayList<>(counted.keySet());
+			types.sort(Entry::compareTypes);
+			this.counts = new int[types.size()];
+			for (int t = 0; t < types.size(); t++) {
+				counts[t] = counted.get(types.get(t));
+			}
+		}
+
+		private Entry(long context, List<List<Float>> types, int[] counts) {
+			this.context = context;
+			this.types = types;
+			this.counts = counts;
+		}
+
+		private static int compareTypes(List<Float> a, List<Float> b) {
+			for (int i = 0; i < a.size(); i++) {
+				int c = Float.compare(a.get(i), b.get(i));
+				if (c != 0) {
+					return c;
+				}
+			}
+			return 0;
+		}
+
+		/**
+		 * Index into the types of each box.
+		 */
+		int[] typesOf(List<Box> boxes) {
+			int[] indices = new int[boxes.size()];
+			for (int i = 0; i < boxes.size(); i++) {
+				indices[i] = Collections.binarySearch(types, typeOf(boxes.get(i)), Entry::compareTypes);
+			}
+			return indices;
+		}
+
+		long fingerprint() {
+			long hash = Optimizer.mix(context ^ types.size());
+			for (int t = 0; t < types.size(); t++) {
+				for (float value : types.get(t)) {
+					hash = Optimizer.mix(hash ^ Float.floatToIntBits(value));
+				}
+				hash = Optimizer.mix(hash ^ counts[t]);
+			}
+			return hash;
+		}
+
+		boolean sameInstance(Entry other) {
+			return context == other.context && types.equals(other.types) && Arrays.equals(counts, other.counts);
+		}
+
+		/**
+		 * Sum of the smaller type counts of the two instances over the sum of
+		 * the larger ones.
+		 */
+		double similarity(Entry other) {
+			long shared = 0;
+			long total = 0;
+			int i = 0;
+			int j = 0;
+			while (i < types.size() || j < other.types.size()) {
+				int c = i == types.size() ? 1
+						: j == other.types.size() ? -1 : compareTypes(types.get(i), other.types.get(j));
+				if (c == 0) {
+					shared += Math.min(counts[i], other.counts[j]);
+					total += Math.max(counts[i++], other.counts[j++]);
+				} else if (c < 0) {
+					total += counts[i++];
+				} else {
+					total += other.counts[j++];
+				}
+			}
+			return total > 0 ? (double) shared / total : 0;
+		}
+
+		void add(int[] sequence, double score) {
+			for (int[] known : sequences) {
+				if (Arrays.equals(known, sequence)) {
+					return;
+				}
+			}
+			sequences.add(sequence);
+			scores.add(score);
+		}
+
+		/**
+		 * Sorts the orders best first, unknown scores last, and drops all but
+		 * MAX_SOLUTIONS.
+		 */
+		void keepBest(boolean growingBin) {
+			Integer[] ranked = new Integer[sequences.size()];
+			for (int i = 0; i < ranked.length; i++) {
+				ranked[i] = i;
+			}
+			Arrays.sort(ranked, (a, b) -> {
+				double sa = scores.get(a);
+				double sb = scores.get(b);
+				if (Double.isNaN(sa) || Double.isNaN(sb)) {
+					return Boolean.compare(Double.isNaN(sa), Double.isNaN(sb));
+				}
+				return growingBin ? Double.compare(sa, sb) : Double.compare(sb, sa);
+			});
+			List<int[]> keptSequences = new ArrayList<>();
+			List<Double> keptScores = new ArrayList<>();
+			for (int i = 0; i < Math.min(MAX_SOLUTIONS, ranked.length); i++) {
+				keptSequences.add(sequences.get(ranked[i]));
+				keptScores.add(scores.get(ranked[i]));
+			}
+			sequences.clear();
+			sequences.addAll(keptSequences);
+			scores.clear();
+			scores.addAll(keptScores);
+		}
+
+		void write(StateBuffer out) {
+			out.putInt(MAGIC);
+			out.putInt(VERSION);
+			out.putLong(context);
+			out.putInt(types.size());
+			for (int t = 0; t < types.size(); t++) {
+				List<Float> type = types.get(t);
+				out.putFloats(new float[] { type.get(0), type.get(1), type.get(2), type.get(3) });
+				out.putInt(counts[t]);
+			}
+			out.putInt(sequences.size());
+			for (int i = 0; i < sequences.size(); i++) {
+				out.putDouble(scores.get(i));
+				out.putInts(sequences.get(i));
+			}
+		}
+
+		static Entry read(StateBuffer in) {
+			long context = in.getLong();
+			int typeCount = in.getInt();
+			if (typeCount < 0) {
+				throw new IllegalArgumentException("Negative type count");
+			}
+			List<List<Float>> types = new ArrayList<>();
+			int[] counts = new int[typeCount];
+			int length = 0;
+			for (int t = 0; t < typeCount; t++) {
+				float[] type = in.getFloats(4);
+				types.add(Arrays.asList(type[0], type[1], type[2], type[3]));
+				counts[t] = in.getInt();
+				if (counts[t] < 0) {
+					throw new IllegalArgumentException("Negative box count");
+				}
+				length += counts[t];
+			}
+			Entry entry = new Entry(context, types, counts);
+			int sequenceCount = in.getInt();
+			for (int i = 0; i < sequenceCount; i++) {
+				double score = in.getDouble();
+				int[] sequence = in.getInts(length);
+				for (int type : sequence) {
+					if (type < 0 || type >= typeCount) {
+						throw new IllegalArgumentException("Unknown box type " + type);
+					}
+				}
+				entry.add(sequence, score);
+			}
+			return entry;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+import com.binpacker.lib.solver.cpusolvers.SolverInterface;
+
+/**
+ * Keeps one solver instance per thread, so each worker reuses the same
+ * initialized solver across generations instead of creating a new one.
+ */
+class SolverPool {
+
+	private final Supplier<SolverInterface> solverSource;
+	private final ConcurrentLinkedQueue<SolverInterface> created = new ConcurrentLinkedQueue<>();
+	private ThreadLocal<SolverInterface> local;
+
+	SolverPool(Supplier<SolverInterface> solverSource) {
+		this.solverSource = solverSource;
+		this.local = newLocal();
+	}
+
+	private ThreadLocal<SolverInterface> newLocal() {
+		return ThreadLocal.withInitial(() -> {
+			SolverInterface solver = solverSource.get();
+			created.add(solver);
+			return solver;
+		});
+	}
+
+	/**
+	 * The calling thread's solver, reset and ready for a new solve.
+	 */
+	SolverInterface get() {
+		SolverInterface solver = local.get();
+		solver.reset();
+		return solver;
+	}
+
+	void release() {
+		// Threads that are still alive must not see the released instances
+		local = newLocal();
+		SolverInterface solver;
+		while ((solver = created.poll()) != null) {
+			solver.release();
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package com.binpacker.lib.optimizer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Growable buffer for the binary state of an optimizer, see
+ * {@link Optimizer#saveCheckpoint}, and for {@link SolutionStore} entries.
+ * Arrays are copied in bulk through views of the buffer, so large populations
+ * cost little more than the copy.
+ */
+final class StateBuffer {
+
+	private ByteBuffer buffer;
+
+	/**
+	 * An empty buffer to write to.
+	 */
+	StateBuffer(int capacity) {
+		this.buffer = ByteBuffer.allocate(Math.max(64, capacity));
+	}
+
+	/**
+	 * A buffer to read the given contents from.
+	 */
+	StateBuffer(ByteBuffer contents) {
+		this.buffer = contents;
+	}
+
+	/**
+	 * Writes the buffers to file. They are written next to it, forced to disk
+	 * and then moved in place, so a crash leaves the previous file intact.
+	 */
+	static void write(Path file, ByteBuffer... buffers) throws IOException {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			long remaining = 0;
+			for (ByteBuffer buffer : buffers) {
+				remaining += buffer.remaining();
+			}
+			while (remaining > 0) {
+				remaining -= channel.write(buffers);
+			}
+			channel.force(true);
+		}
+		try {
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * A buffer to read the whole file from.
+	 */
+	static StateBuffer read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("File is too large: " + file);
+			}
+			ByteBuffer contents = ByteBuffer.allocate((int) channel.size());
+			while (contents.hasRemaining() && channel.read(contents) >= 0) {
+				// Read until full or end of file
+			}
+			contents.flip();
+			return new StateBuffer(contents);
+		}
+	}
+
+	/**
+	 * What is left to read.
+	 */
+	ByteBuffer remaining() {
+		return buffer.duplicate();
+	}
+
+	/**
+	 * The written contents, ready to be read or written out.
+	 */
+	ByteBuffer contents() {
+		ByteBuffer contents = buffer.duplicate();
+		contents.flip();
+		return contents;
+	}
+
+	private void ensure(long bytes) {
+		if (buffer.remaining() >= bytes) {
+			return;
+		}
+		long needed = buffer.position() + bytes;
+		int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, buffer.capacity() * 2L));
+		if (capacity < needed) {
+			throw new RuntimeException("Optimizer state is too large for a checkpoint");
+		}
+		ByteBuffer grown = ByteBuffer.allocate(capacity);
+		buffer.flip();
+		grown.put(buffer);
+		buffer = grown;
+	}
+
+	void putBoolean(boolean value) {
+		ensure(1);
+		buffer.put((byte) (value ? 1 : 0));
+	}
+
+	void putInt(int value) {
+		ensure(4);
+		buffer.putInt(value);
+	}
+
+	void putLong(long value) {
+		ensure(8);
+		buffer.putLong(value);
+	}
+
+	void putDouble(double value) {
+		ensure(8);
+		buffer.putDouble(value);
+	}
+
+	/**
+	 * The values only, read back with {@link #getInts(int)}.
+	 */
+	void putInts(int[] values) {
+		ensure(4L * values.length);
+		buffer.asIntBuffer().put(values);
+		buffer.position(buffer.position() + 4 * values.length);
+	}
+
+	void putFloats(float[] values) {
+		ensure(4L * values.length);
+		buffer.asFloatBuffer().put(values);
+		buffer.position(buffer.position() + 4 * values.length);
+	}
+
+	void putDoubles(double[] values) {
+		ensure(8L * values.length);
+		buffer.asDoubleBuffer().put(values);
+		buffer.position(buffer.position() + 8 * values.length);
+	}
+
+	void putString(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		putInt(bytes.length);
+		ensure(bytes.length);
+		buffer.put(bytes);
+	}
+
+	boolean getBoolean() {
+		return buffer.get() != 0;
+	}
+
+	int getInt() {
+		return buffer.getInt();
+	}
+
+	long getLong() {
+		return buffer.getLong();
+	}
+
+	double getDouble() {
+		return buffer.getDouble();
+	}
+
+	int[] getInts(int count) {
+		int[] values = new int[count];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + 4 * count);
+		return values;
+	}
+
+	float[] getFloats(int count) {
+		float[] values = new float[count];
+		buffer.asFloatBuffer().get(values);
+		buffer.position(buffer.position() + 4 * count);
+		return values;
+	}
+
+	double[] getDoubles(int count) {
+		double[] values = new double[count];
+		buffer.asDoubleBuffer().get(values);
+		buffer.position(buffer.position() + 8 * count);
+		return values;
+	}
+
+	String getString() {
+		byte[] bytes = new byte[getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,334 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.solver.cpusolvers.SolverInterface;
+
+/**
+ * Steady-state GA without generation barriers. Worker threads each breed a
+ * child from the current population, evaluate it and insert it right away, so
+ * no worker waits for a slow order of another.
+ *
+ * A child replaces the loser of a tournament among the non-elite members if it
+ * scores better. Workers breed continuously. executeNextGeneration() returns
+ * the best packing so far once populationSize children were evaluated since
+ * the previous call, without waiting for those still being packed. Workers
+ * breed at most populationSize children ahead of that while the caller is
+ * away, and stop on a stop request or release(), to be started again by the
+ * next call. With threaded set to false the children are evaluated on the
+ * calling thread, and runs are reproducible from the seed.
+ */
+public class SteadyStateOptimizer extends CPUOptimizer {
+
+	// Draws of the tournament that picks a parent, and of the one that picks
+	// the member a child replaces
+	private static final int PARENT_TOURNAMENT_SIZE = 2;
+	private static final int REPLACEMENT_TOURNAMENT_SIZE = 3;
+
+	private final int workerCount;
+
+	// Best first. Guarded by itself, which is also used to wait for progress
+	private List<Solution> population;
+	private final Set<FitnessCache.Key> members = new HashSet<>();
+	private volatile double worstScore = Double.NaN;
+
+	// Children evaluated, and claimed by a worker to evaluate. The next call
+	// returns once evaluations reach the target, and workers claim at most
+	// populationSize children beyond it
+	private final AtomicLong evaluations = new AtomicLong();
+	private final AtomicLong claimed = new AtomicLong();
+	private volatile long evaluationTarget;
+	private volatile boolean running;
+	private final AtomicInteger liveWorkers = new AtomicInteger();
+	private ExecutorService workers;
+	private SplittableRandom random;
+
+	private Solution packedBest;
+	private List<List<Box>> packedBestSolution;
+
+	public SteadyStateOptimizer() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public SteadyStateOptimizer(int workerCount) {
+		this.workerCount = Math.max(1, workerCount);
+	}
+
+	@Override
+	public void initialize(Supplier<SolverInterface> solverSource, List<Box> boxes, Bin bin, boolean growingBin,
+			String growAxis, List<Integer> rotationAxes, int populationSize, int eliteCount, boolean threaded) {
+		stopWorkers();
+		super.initialize(solverSource, boxes, bin, growingBin, growAxis, rotationAxes, populationSize, eliteCount,
+				threaded);
+		population = null;
+		members.clear();
+		worstScore = Double.NaN;
+		evaluations.set(0);
+		claimed.set(0);
+		evaluationTarget = 0;
+		random = new SplittableRandom(seed);
+		packedBest = null;
+		packedBestSolution = null;
+	}
+
+	@Override
+	public List<List<Box>> executeNextGeneration() {
+		if (population == null) {
+			// The initial population is evaluated as a whole, once
+			List<Solution> scored = evaluateCached(boxOrders);
+			scored.sort((a, b) -> isBetter(a.score, b.score) ? -1 : isBetter(b.score, a.score) ? 1 : 0);
+			population = new ArrayList<>();
+			for (Solution solution : scored) {
+				if (members.add(fitnessCache.key(solution.order))) {
+					population.add(solution);
+				}
+			}
+			worstScore = population.get(population.size() - 1).score;
+		} else if (threaded) {
+			awaitEvaluations();
+		} else {
+			for (int i = 0; i < populationSize; i++) {
+				step(random);
+			}
+		}
+		generation++;
+
+		Solution best;
+		synchronized (population) {
+			best = population.get(0);
+			int elites = Math.min(getEliteCount(), population.size());
+			retainElites(new ArrayList<>(population.subList(0, elites)));
+			dropCheckpoints(population.subList(elites, population.size()));
+			boxOrders = new ArrayList<>();
+			for (Solution solution : population) {
+				boxOrders.add(solution.order);
+			}
+			evaluationTarget = evaluations.get() + populationSize;
+			population.notifyAll();
+		}
+		// Workers go on breeding while the best is packed and until the next call
+		if (threaded && liveWorkers.get() == 0 && !isStopRequested()) {
+			startWorkers();
+		}
+
+		// Packing the best again is only needed when it changed
+		if (best != packedBest) {
+			packedBestSolution = finalizeBestSolution(best);
+			packedBest = best;
+		}
+		return packedBestSolution;
+	}
+
+	/**
+	 * Breeds, evaluates and inserts one child.
+	 */
+	private void step(SplittableRandom random) {
+		int operator = operators.select(random);
+		int[] child;
+		double parentScore;
+		synchronized (population) {
+			Solution p1 = population.get(tournamentWinner(random));
+			Solution p2 = operators.get(operator).isCrossover() ? population.get(tournamentWinner(random)) : p1;
+			child = operators.get(operator).apply(p1.order, p2.order, random);
+			parentScore = isBetter(p2.score, p1.score) ? p2.score : p1.score;
+		}
+
+		FitnessCache.Key key = fitnessCache.key(child);
+		Double cached = fitnessCache.get(key);
+		Solution solution;
+		if (cached != null) {
+			solution = new Solution(child, cached, null);
+		} else {
+			// A child worse than the worst member can never be inserted
+			solution = evaluate(child, worstScore);
+			if (!solution.aborted) {
+				fitnessCache.put(key, solution.score);
+			}
+		}
+		double gain = growingBin ? parentScore - solution.score : solution.score - parentScore;
+		operators.record(operator, gain, solution.placed, solution.nanos);
+		insert(solution, key, random);
+
+		if (evaluations.incrementAndGet() >= evaluationTarget) {
+			synchronized (population) {
+				population.notifyAll();
+			}
+		}
+	}
+
+	private int tournamentWinner(SplittableRandom random) {
+		// The population is sorted, so the lowest index wins
+		int winner = population.size();
+		for (int i = 0; i < PARENT_TOURNAMENT_SIZE; i++) {
+			winner = Math.min(winner, random.nextInt(population.size()));
+		}
+		return winner;
+	}
+
+	private void insert(Solution solution, FitnessCache.Key key, SplittableRandom random) {
+		synchronized (population) {
+			if (members.contains(key)) {
+				return; // Keep the population free of duplicates
+			}
+
+			// Elites are never replaced
+			int first = Math.min(getEliteCount(), population.size() - 1);
+			if (first < 0 || first >= population.size()) {
+				return;
+			}
+			int loser = first;
+			for (int i = 0; i < REPLACEMENT_TOURNAMENT_SIZE; i++) {
+				loser = Math.max(loser, first + random.nextInt(population.size() - first));
+			}
+			Solution replaced = population.get(loser);
+			if (!isBetter(solution.score, replaced.score)) {
+				return;
+			}
+
+			population.remove(loser);
+			members.remove(fitnessCache.key(replaced.order));
+			int position = 0;
+			while (position < population.size() && !isBetter(solution.score, population.get(position).score)) {
+				position++;
+			}
+			population.add(position, solution);
+			members.add(key);
+			worstScore = population.get(population.size() - 1).score;
+		}
+	}
+
+	/**
+	 * Starts the workers, which breed until a stop request or release().
+	 */
+	private void startWorkers() {
+		if (workers != null) {
+			workers.shutdown();
+		}
+		running = true;
+		// Claims of workers that stopped mid-child are void
+		claimed.set(evaluations.get());
+		workers = Executors.newFixedThreadPool(workerCount);
+		for (int i = 0; i < workerCount; i++) {
+			SplittableRandom workerRandom = random.split();
+			liveWorkers.incrementAndGet();
+			workers.submit(() -> {
+				try {
+					while (awaitWork()) {
+						try {
+							step(workerRandom);
+						} catch (RuntimeException e) {
+							System.err.println("Error evaluating child: " + e);
+						}
+					}
+				} finally {
+					liveWorkers.decrementAndGet();
+					synchronized (population) {
+						population.notifyAll();
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Claims a child to evaluate, waiting while the workers are a generation
+	 * ahead of the caller. False if the worker should stop instead.
+	 */
+	private boolean awaitWork() {
+		synchronized (population) {
+			while (true) {
+				if (!running || isStopRequested() || Thread.currentThread().isInterrupted()) {
+					return false;
+				}
+				if (claimed.get() < evaluationTarget + populationSize) {
+					claimed.incrementAndGet();
+					return true;
+				}
+				try {
+					population.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits until populationSize children were evaluated since the previous
+	 * call, or the workers stopped.
+	 */
+	private void awaitEvaluations() {
+		if (liveWorkers.get() == 0) {
+			// They stopped on a stop request, cutting their last children short,
+			// so a whole generation is evaluated from here
+			synchronized (population) {
+				evaluationTarget = evaluations.get() + populationSize;
+			}
+			startWorkers();
+		}
+		synchronized (population) {
+			while (running && liveWorkers.get() > 0 && evaluations.get() < evaluationTarget) {
+				try {
+					population.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	private void stopWorkers() {
+		running = false;
+		if (workers != null) {
+			synchronized (population) {
+				population.notifyAll();
+			}
+			workers.shutdownNow();
+			try {
+				// Let running evaluations finish before their solvers are released
+				if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+					System.err.println("Steady-state workers did not stop in time");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			workers = null;
+		}
+	}
+
+	public long getEvaluations() {
+		return evaluations.get();
+	}
+
+	@Override
+	public boolean supportsEvaluationTiers() {
+		// Workers breed one child at a time, there is no pool to screen
+		return false;
+	}
+
+	@Override
+	protected boolean supportsCheckpoints() {
+		// Workers breed asynchronously, so there is no state to resume exactly
+		return false;
+	}
+
+	@Override
+	public void release() {
+		stopWorkers();
+		super.release();
+	}
+}
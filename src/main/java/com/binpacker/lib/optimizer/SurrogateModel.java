@@ -0,0 +1,297 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+
+/**
+ * Cheap predictor of the score of a child order, used to screen children
+ * before they are packed. It is a linear model over a few features of the
+ * order, fitted online by recursive least squares to the real scores of the
+ * children that were packed, with older samples slowly forgotten.
+ *
+ * Features:
+ * <ul>
+ * <li>the score of the better parent</li>
+ * <li>how much of the order differs from that parent</li>
+ * <li>rank correlation of box volume with position, positive when large boxes
+ * come late</li>
+ * <li>mean position of the largest tenth of the boxes</li>
+ * <li>how much box heights vary within each expected bin, splitting the order
+ * where the cumulative volume fills another bin</li>
+ * </ul>
+ */
+public class SurrogateModel {
+
+	static final int FEATURES = 6;
+	private static final double FORGETTING = 0.995;
+	private static final double INITIAL_VARIANCE = 1000;
+
+	private final double[] volumes;
+	private final double[] heights;
+	private final double binVolume;
+	private final double binHeight;
+	private final boolean[] large;
+	private final double meanVolume;
+	private final double volumeDeviation;
+
+	private final double[] weights = new double[FEATURES];
+	private final double[][] covariance = new double[FEATURES][FEATURES];
+	private long samples;
+	private final int warmup;
+
+	// Telemetry, Spearman correlation of predicted and real scores
+	private double lastRankCorrelation = Double.NaN;
+	private double rankCorrelationSum;
+	private long rankings;
+
+	/**
+	 * @param warmup samples to learn from before {@link #isReady()}
+	 */
+	public SurrogateModel(List<Box> boxes, Bin bin, int warmup) {
+		int n = boxes.size();
+		this.volumes = new double[n];
+		this.heights = new double[n];
+		for (int i = 0; i < n; i++) {
+			volumes[i] = boxes.get(i).getVolume();
+			Box box = boxes.get(i);
+			heights[i] = Math.min(box.size.x, Math.min(box.size.y, box.size.z));
+		}
+		this.binVolume = bin.getVolume();
+		this.binHeight = Math.max(bin.w, Math.max(bin.h, bin.d));
+		this.warmup = warmup;
+
+		double[] sorted = volumes.clone();
+		Arrays.sort(sorted);
+		double threshold = n > 0 ? sorted[(int) (n * 0.9)] : 0;
+		this.large = new boolean[n];
+		double sum = 0;
+		for (int i = 0; i < n; i++) {
+			large[i] = volumes[i] >= threshold;
+			sum += volumes[i];
+		}
+		this.meanVolume = n > 0 ? sum / n : 0;
+		double squares = 0;
+		for (double volume : volumes) {
+			squares += (volume - meanVolume) * (volume - meanVolume);
+		}
+		this.volumeDeviation = n > 0 ? Math.sqrt(squares / n) : 0;
+
+		for (int i = 0; i < FEATURES; i++) {
+			covariance[i][i] = INITIAL_VARIANCE;
+		}
+	}
+
+	/**
+	 * Features of a child order bred from parent, whose score is parentScore.
+	 */
+	public double[] features(int[] order, int[] parent, double parentScore) {
+		int n = order.length;
+		double[] f = new double[FEATURES];
+		f[0] = 1;
+		f[1] = Double.isInfinite(parentScore) ? 0 : parentScore;
+		if (n == 0) {
+			return f;
+		}
+
+		int differing = 0;
+		double covariance = 0;
+		double largePosition = 0;
+		int largeCount = 0;
+		double meanPosition = (n - 1) / 2.0;
+		for (int k = 0; k < n; k++) {
+			int box = order[k];
+			if (box != parent[k]) {
+				differing++;
+			}
+			covariance += (k - meanPosition) * (volumes[box] - meanVolume);
+			if (large[box]) {
+				largePosition += k;
+				largeCount++;
+			}
+		}
+		double positionDeviation = Math.sqrt((n * (double) n - 1) / 12.0);
+		f[2] = (double) differing / n;
+		f[3] = volumeDeviation > 0 && positionDeviation > 0
+				? covariance / (n * positionDeviation * volumeDeviation)
+				: 0;
+		f[4] = largeCount > 0 ? largePosition / largeCount / n : 0;
+		f[5] = heightSpread(order);
+		return f;
+	}
+
+	/**
+	 * Mean standard deviation of the box heights within each expected bin,
+	 * relative to the bin height.
+	 */
+	private double heightSpread(int[] order) {
+		double spread = 0;
+		int chunks = 0;
+		double filled = 0;
+		double sum = 0;
+		double squares = 0;
+		int count = 0;
+		for (int k = 0; k < order.length; k++) {
+			int box = order[k];
+			sum += heights[box];
+			squares += heights[box] * heights[box];
+			count++;
+			filled += volumes[box];
+			if (filled >= binVolume || k == order.length - 1) {
+				double mean = sum / count;
+				spread += Math.sqrt(Math.max(0, squares / count - mean * mean));
+				chunks++;
+				filled = 0;
+				sum = 0;
+				squares = 0;
+				count = 0;
+			}
+		}
+		return binHeight > 0 ? spread / chunks / binHeight : 0;
+	}
+
+	public synchronized double predict(double[] features) {
+		double prediction = 0;
+		for (int i = 0; i < FEATURES; i++) {
+			prediction += weights[i] * features[i];
+		}
+		return prediction;
+	}
+
+	/**
+	 * Learns from the real score of an order with the given features.
+	 */
+	public synchronized void train(double[] features, double score) {
+		if (Double.isNaN(score) || Double.isInfinite(score)) {
+			return;
+		}
+		// Recursive least squares with exponential forgetting
+		double[] px = new double[FEATURES];
+		double denominator = FORGETTING;
+		for (int i = 0; i < FEATURES; i++) {
+			for (int j = 0; j < FEATURES; j++) {
+				px[i] += covariance[i][j] * features[j];
+			}
+			denominator += features[i] * px[i];
+		}
+		double error = score;
+		for (int i = 0; i < FEATURES; i++) {
+			error -= weights[i] * features[i];
+		}
+		for (int i = 0; i < FEATURES; i++) {
+			weights[i] += px[i] / denominator * error;
+		}
+		for (int i = 0; i < FEATURES; i++) {
+			for (int j = 0; j < FEATURES; j++) {
+				covariance[i][j] = (covariance[i][j] - px[i] * px[j] / denominator) / FORGETTING;
+			}
+		}
+		samples++;
+	}
+
+	public synchronized boolean isReady() {
+		return samples >= warmup;
+	}
+
+	public synchronized long getSamples() {
+		return samples;
+	}
+
+	/**
+	 * Records how well the predictions of one generation ranked the real
+	 * scores.
+	 */
+	public synchronized void recordRanking(double[] predicted, double[] actual) {
+		if (predicted.length < 2) {
+			return;
+		}
+		lastRankCorrelation = spearman(predicted, actual);
+		if (!Double.isNaN(lastRankCorrelation)) {
+			rankCorrelationSum += lastRankCorrelation;
+			rankings++;
+		}
+	}
+
+	/**
+	 * Spearman correlation of predicted and real scores in the last screened
+	 * generation, 1 for a perfect ranking. NaN before the first.
+	 */
+	public synchronized double getLastRankCorrelation() {
+		return lastRankCorrelation;
+	}
+
+	public synchronized double getMeanRankCorrelation() {
+		return rankings > 0 ? rankCorrelationSum / rankings : Double.NaN;
+	}
+
+	/**
+	 * Weights, covariance, sample count and ranking telemetry, for checkpoints.
+	 */
+	synchronized double[] getState() {
+		double[] state = new double[FEATURES + FEATURES * FEATURES + 4];
+		System.arraycopy(weights, 0, state, 0, FEATURES);
+		for (int i = 0; i < FEATURES; i++) {
+			System.arraycopy(covariance[i], 0, state, FEATURES * (i + 1), FEATURES);
+		}
+		int rest = FEATURES + FEATURES * FEATURES;
+		state[rest] = samples;
+		state[rest + 1] = lastRankCorrelation;
+		state[rest + 2] = rankCorrelationSum;
+		state[rest + 3] = rankings;
+		return state;
+	}
+
+	synchronized void setState(double[] state) {
+		System.arraycopy(state, 0, weights, 0, FEATURES);
+		for (int i = 0; i < FEATURES; i++) {
+			System.arraycopy(state, FEATURES * (i + 1), covariance[i], 0, FEATURES);
+		}
+		int rest = FEATURES + FEATURES * FEATURES;
+		samples = (long) state[rest];
+		lastRankCorrelation = state[rest + 1];
+		rankCorrelationSum = state[rest + 2];
+		rankings = (long) state[rest + 3];
+	}
+
+	static double spearman(double[] a, double[] b) {
+		double[] ra = ranks(a);
+		double[] rb = ranks(b);
+		int n = a.length;
+		double mean = (n - 1) / 2.0;
+		double covariance = 0;
+		double va = 0;
+		double vb = 0;
+		for (int i = 0; i < n; i++) {
+			covariance += (ra[i] - mean) * (rb[i] - mean);
+			va += (ra[i] - mean) * (ra[i] - mean);
+			vb += (rb[i] - mean) * (rb[i] - mean);
+		}
+		return va > 0 && vb > 0 ? covariance / Math.sqrt(va * vb) : Double.NaN;
+	}
+
+	/**
+	 * Ranks from 0, ties get their mean rank.
+	 */
+	private static double[] ranks(double[] values) {
+		int n = values.length;
+		Integer[] index = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			index[i] = i;
+		}
+		Arrays.sort(index, (x, y) -> Double.compare(values[x], values[y]));
+		double[] ranks = new double[n];
+		for (int i = 0; i < n;) {
+			int j = i;
+			while (j + 1 < n && Double.compare(values[index[j + 1]], values[index[i]]) == 0) {
+				j++;
+			}
+			for (int k = i; k <= j; k++) {
+				ranks[index[k]] = (i + j) / 2.0;
+			}
+			i = j + 1;
+		}
+		return ranks;
+	}
+}
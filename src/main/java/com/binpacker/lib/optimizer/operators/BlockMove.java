@@ -0,0 +1,70 @@
+package com.binpacker.lib.optimizer.operators;
+
+import java.util.SplittableRandom;
+
+/**
+ * Moves a whole run of consecutive boxes of the same type to the start of
+ * another run, so runs of identical boxes, which pack well together, are moved
+ * as a unit and never split.
+ */
+public class BlockMove implements PermutationOperator {
+
+	private final int[] boxTypes;
+
+	/**
+	 * @param boxTypes type of each box index, see {@link BoxTypes#of}
+	 */
+	public BlockMove(int[] boxTypes) {
+		this.boxTypes = boxTypes;
+	}
+
+	@Override
+	public String getName() {
+		return "Block";
+	}
+
+	@Override
+	public boolean isCrossover() {
+		return false;
+	}
+
+	@Override
+	public int[] apply(int[] parent1, int[] parent2, SplittableRandom random) {
+		int size = parent1.length;
+		if (size < 2) {
+			return parent1.clone();
+		}
+
+		// The run around a random position
+		int position = random.nextInt(size);
+		int type = boxTypes[parent1[position]];
+		int start = position;
+		while (start > 0 && boxTypes[parent1[start - 1]] == type) {
+			start--;
+		}
+		int end = position + 1;
+		while (end < size && boxTypes[parent1[end]] == type) {
+			end++;
+		}
+		int length = end - start;
+		if (length == size) {
+			return parent1.clone();
+		}
+
+		// Everything else, and a target at the start of one of its runs
+		int[] rest = new int[size - length];
+		System.arraycopy(parent1, 0, rest, 0, start);
+		System.arraycopy(parent1, end, rest, start, size - end);
+		int target = random.nextInt(rest.length + 1);
+		while (target > 0 && target < rest.length
+				&& boxTypes[rest[target - 1]] == boxTypes[rest[target]]) {
+			target--;
+		}
+
+		int[] child = new int[size];
+		System.arraycopy(rest, 0, child, 0, target);
+		System.arraycopy(parent1, start, child, target, length);
+		System.arraycopy(rest, target, child, target + length, rest.length - target);
+		return child;
+	}
+}
@@ -0,0 +1,25 @@
+package com.binpacker.lib.optimizer.operators;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.binpacker.lib.common.Box;
+
+public class BoxTypes {
+
+	/**
+	 * Type id of each box, boxes with the same size and weight share a type.
+	 */
+	public static int[] of(List<Box> boxes) {
+		int[] types = new int[boxes.size()];
+		Map<List<Float>, Integer> typeIds = new HashMap<>();
+		for (int i = 0; i < boxes.size(); i++) {
+			Box box = boxes.get(i);
+			List<Float> type = Arrays.asList(box.size.x, box.size.y, box.size.z, box.weight);
+			types[i] = typeIds.computeIfAbsent(type, t -> typeIds.size());
+		}
+		return types;
+	}
+}
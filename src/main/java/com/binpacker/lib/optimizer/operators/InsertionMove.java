@@ -0,0 +1,38 @@
+package com.binpacker.lib.optimizer.operators;
+
+import java.util.SplittableRandom;
+
+/**
+ * Moves one random gene to another random position, shifting the genes in
+ * between.
+ */
+public class InsertionMove implements PermutationOperator {
+
+	@Override
+	public String getName() {
+		return "Insertion";
+	}
+
+	@Override
+	public boolean isCrossover() {
+		return false;
+	}
+
+	@Override
+	public int[] apply(int[] parent1, int[] parent2, SplittableRandom random) {
+		int[] child = parent1.clone();
+		if (child.length < 2) {
+			return child;
+		}
+		int from = random.nextInt(child.length);
+		int to = random.nextInt(child.length);
+		int gene = child[from];
+		if (from < to) {
+			System.arraycopy(child, from + 1, child, from, to - from);
+		} else if (from > to) {
+			System.arraycopy(child, to, child, to + 1, from - to);
+		}
+		child[to] = gene;
+		return child;
+	}
+}
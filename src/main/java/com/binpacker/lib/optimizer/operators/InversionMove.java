@@ -0,0 +1,37 @@
+package com.binpacker.lib.optimizer.operators;
+
+import java.util.SplittableRandom;
+
+/**
+ * Reverses a random segment of the order.
+ */
+public class InversionMove implements PermutationOperator {
+
+	@Override
+	public String getName() {
+		return "Inversion";
+	}
+
+	@Override
+	public boolean isCrossover() {
+		return false;
+	}
+
+	@Override
+	public int[] apply(int[] parent1, int[] parent2, SplittableRandom random) {
+		int[] child = parent1.clone();
+		int i = random.nextInt(child.length);
+		int j = random.nextInt(child.length);
+		if (i > j) {
+			int t = i;
+			i = j;
+			j = t;
+		}
+		while (i < j) {
+			int t = child[i];
+			child[i++] = child[j];
+			child[j--] = t;
+		}
+		return child;
+	}
+}
@@ -0,0 +1,181 @@
+package com.binpacker.lib.optimizer.operators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Adaptive choice between several operators. Each child records which operator
+ * bred it, and once it is scored, how much it improved on its best parent and
+ * what its evaluation cost.
+ *
+ * Operators are rated by their gain per unit of evaluation work with a UCB1
+ * exploration bonus, and picked at random in proportion to that rating, with a
+ * floor so that no operator is ever dropped completely. Statistics decay, so
+ * the choice follows the search as it converges.
+ *
+ * Work is counted in boxes placed rather than wall-clock time: it follows the
+ * evaluation time closely, since resumed and cached evaluations place fewer
+ * boxes, but does not depend on the machine's load, so runs with the same seed
+ * stay reproducible. The time taken is kept for the statistics.
+ */
+public class OperatorPortfolio {
+
+	private static final double EXPLORATION = 0.5;
+	private static final double MIN_PROBABILITY = 0.02;
+	private static final double DECAY = 0.995;
+
+	private final List<PermutationOperator> operators;
+	private final double[] uses;
+	private final double[] improvements;
+	private final double[] gain;
+	private final double[] placed;
+	private final double[] millis;
+
+	// Selection probabilities, recomputed after recording
+	private volatile double[] probabilities;
+
+	public OperatorPortfolio(List<PermutationOperator> operators) {
+		this.operators = new ArrayList<>(operators);
+		int count = operators.size();
+		this.uses = new double[count];
+		this.improvements = new double[count];
+		this.gain = new double[count];
+		this.placed = new double[count];
+		this.millis = new double[count];
+		this.probabilities = new double[count];
+		Arrays.fill(probabilities, 1.0 / count);
+	}
+
+	/**
+	 * The default operators: OX, PMX, swap, insertion, inversion and type
+	 * block moves.
+	 */
+	public static OperatorPortfolio standard(int[] boxTypes) {
+		List<PermutationOperator> operators = new ArrayList<>();
+		operators.add(new OrderCrossover());
+		operators.add(new PartiallyMappedCrossover());
+		operators.add(new SwapMove());
+		operators.add(new InsertionMove());
+		operators.add(new InversionMove());
+		operators.add(new BlockMove(boxTypes));
+		return new OperatorPortfolio(operators);
+	}
+
+	public int size() {
+		return operators.size();
+	}
+
+	public PermutationOperator get(int index) {
+		return operators.get(index);
+	}
+
+	/**
+	 * Index of a random operator, drawn by the current probabilities. Does not
+	 * change any state, so children can be bred in parallel.
+	 */
+	public int select(SplittableRandom random) {
+		double[] p = probabilities;
+		double r = random.nextDouble();
+		for (int i = 0; i < p.length - 1; i++) {
+			r -= p[i];
+			if (r < 0) {
+				return i;
+			}
+		}
+		return p.length - 1;
+	}
+
+	/**
+	 * Records the outcome of one child. gain is the improvement over the best
+	 * parent, negative values count as no gain. placed and nanos are the boxes
+	 * placed and the time taken to evaluate it, 0 when it was cached.
+	 */
+	public synchronized void record(int operator, double gain, int placed, long nanos) {
+		for (int i = 0; i < operators.size(); i++) {
+			uses[i] *= DECAY;
+			improvements[i] *= DECAY;
+			this.gain[i] *= DECAY;
+			this.placed[i] *= DECAY;
+			millis[i] *= DECAY;
+		}
+		uses[operator]++;
+		if (gain > 0 && !Double.isInfinite(gain)) {
+			improvements[operator]++;
+			this.gain[operator] += gain;
+		}
+		this.placed[operator] += placed;
+		millis[operator] += nanos / 1e6;
+		updateProbabilities();
+	}
+
+	private void updateProbabilities() {
+		int count = operators.size();
+		double totalUses = 0;
+		double bestRate = 0;
+		double[] rates = new double[count];
+		for (int i = 0; i < count; i++) {
+			totalUses += uses[i];
+			// At least one box per use, cached evaluations place none
+			rates[i] = gain[i] / Math.max(placed[i], uses[i]);
+			bestRate = Math.max(bestRate, rates[i]);
+		}
+
+		double[] scores = new double[count];
+		double total = 0;
+		for (int i = 0; i < count; i++) {
+			double mean = bestRate > 0 ? rates[i] / bestRate : 0;
+			double bonus = uses[i] < 1 ? 1.0 : EXPLORATION * Math.sqrt(Math.log(totalUses + 1) / uses[i]);
+			scores[i] = mean + bonus;
+			total += scores[i];
+		}
+
+		double[] p = new double[count];
+		for (int i = 0; i < count; i++) {
+			p[i] = MIN_PROBABILITY + (1 - MIN_PROBABILITY * count) * scores[i] / total;
+		}
+		probabilities = p;
+	}
+
+	/**
+	 * The decayed statistics and selection probabilities, so a run can be
+	 * resumed with the same choices.
+	 */
+	public synchronized double[] getState() {
+		int count = operators.size();
+		double[] state = new double[count * 6];
+		double[][] parts = { uses, improvements, gain, placed, millis, probabilities };
+		for (int part = 0; part < parts.length; part++) {
+			System.arraycopy(parts[part], 0, state, part * count, count);
+		}
+		return state;
+	}
+
+	/**
+	 * Restores a state from {@link #getState()} of a portfolio with the same
+	 * operators.
+	 */
+	public synchronized void setState(double[] state) {
+		int count = operators.size();
+		if (state.length != count * 6) {
+			throw new IllegalArgumentException("State is of a portfolio with " + state.length / 6 + " operators, not "
+					+ count);
+		}
+		double[][] parts = { uses, improvements, gain, placed, millis };
+		for (int part = 0; part < parts.length; part++) {
+			System.arraycopy(state, part * count, parts[part], 0, count);
+		}
+		probabilities = Arrays.copyOfRange(state, 5 * count, 6 * count);
+	}
+
+	public synchronized List<OperatorStats> getStats() {
+		List<OperatorStats> stats = new ArrayList<>();
+		double[] p = probabilities;
+		for (int i = 0; i < operators.size(); i++) {
+			stats.add(new OperatorStats(operators.get(i).getName(), uses[i], improvements[i], gain[i], placed[i],
+					millis[i], p[i]));
+		}
+		return stats;
+	}
+}
@@ -0,0 +1,40 @@
+package com.binpacker.lib.optimizer.operators;
+
+/**
+ * Snapshot of how an operator of an {@link OperatorPortfolio} has performed.
+ * Counts and totals decay over time, so they reflect recent use.
+ */
+public class OperatorStats {
+	public final String name;
+	public final double uses;
+	public final double improvements;
+	public final double totalGain;
+	public final double totalPlaced;
+	public final double totalMillis;
+	public final double selectionProbability;
+
+	OperatorStats(String name, double uses, double improvements, double totalGain, double totalPlaced, double totalMillis,
+			double selectionProbability) {
+		this.name = name;
+		this.uses = uses;
+		this.improvements = improvements;
+		this.totalGain = totalGain;
+		this.totalPlaced = totalPlaced;
+		this.totalMillis = totalMillis;
+		this.selectionProbability = selectionProbability;
+	}
+
+	public double gainPerBox() {
+		return totalPlaced > 0 ? totalGain / totalPlaced : 0;
+	}
+
+	public double gainPerMillisecond() {
+		return totalMillis > 0 ? totalGain / totalMillis : 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s(uses=%.0f, improvements=%.0f, gain/ms=%.3g, p=%.2f)", name, uses, improvements,
+				gainPerMillisecond(), selectionProbability);
+	}
+}
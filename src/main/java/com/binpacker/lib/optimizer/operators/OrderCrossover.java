@@ -0,0 +1,60 @@
+package com.binpacker.lib.optimizer.operators;
+
+import java.util.SplittableRandom;
+
+/**
+ * OX: the child keeps a random slice of parent2 and takes the remaining genes
+ * in parent1's order, starting after the slice.
+ */
+public class OrderCrossover implements PermutationOperator {
+
+	@Override
+	public String getName() {
+		return "OX";
+	}
+
+	@Override
+	public boolean isCrossover() {
+		return true;
+	}
+
+	@Override
+	public int[] apply(int[] parent1, int[] parent2, SplittableRandom random) {
+		return cross(parent1, parent2, random);
+	}
+
+	public static int[] cross(int[] parent1, int[] parent2, SplittableRandom random) {
+		int size = parent1.length;
+		int cut1 = random.nextInt(size);
+		int cut2 = random.nextInt(size);
+
+		if (cut1 > cut2) {
+			int t = cut1;
+			cut1 = cut2;
+			cut2 = t;
+		}
+
+		int[] child = new int[size];
+		boolean[] taken = new boolean[size];
+
+		// 1. Copy the slice from parent2
+		for (int i = cut1; i <= cut2; i++) {
+			child[i] = parent2[i];
+			taken[parent2[i]] = true;
+		}
+
+		// 2. Fill remaining positions from parent1 in order
+		int fillPos = (cut2 + 1) % size;
+
+		for (int i = 0; i < size; i++) {
+			int gene = parent1[(cut2 + 1 + i) % size];
+
+			if (!taken[gene]) {
+				child[fillPos] = gene;
+				fillPos = (fillPos + 1) % size;
+			}
+		}
+
+		return child;
+	}
+}
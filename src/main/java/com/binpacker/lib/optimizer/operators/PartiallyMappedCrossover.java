@@ -0,0 +1,57 @@
+package com.binpacker.lib.optimizer.operators;
+
+import java.util.SplittableRandom;
+
+/**
+ * PMX: the child keeps a random slice of parent2 and parent1's genes at their
+ * positions everywhere else. Genes of parent1 that are already in the slice are
+ * replaced through the slice's position mapping between the parents.
+ */
+public class PartiallyMappedCrossover implements PermutationOperator {
+
+	@Override
+	public String getName() {
+		return "PMX";
+	}
+
+	@Override
+	public boolean isCrossover() {
+		return true;
+	}
+
+	@Override
+	public int[] apply(int[] parent1, int[] parent2, SplittableRandom random) {
+		int size = parent1.length;
+		int cut1 = random.nextInt(size);
+		int cut2 = random.nextInt(size);
+		if (cut1 > cut2) {
+			int t = cut1;
+			cut1 = cut2;
+			cut2 = t;
+		}
+
+		int[] child = new int[size];
+		boolean[] inSlice = new boolean[size];
+		int[] positionInParent2 = new int[size];
+		for (int i = 0; i < size; i++) {
+			positionInParent2[parent2[i]] = i;
+		}
+
+		for (int i = cut1; i <= cut2; i++) {
+			child[i] = parent2[i];
+			inSlice[parent2[i]] = true;
+		}
+
+		for (int i = 0; i < size; i++) {
+			if (i >= cut1 && i <= cut2) {
+				continue;
+			}
+			int gene = parent1[i];
+			while (inSlice[gene]) {
+				gene = parent1[positionInParent2[gene]];
+			}
+			child[i] = gene;
+		}
+		return child;
+	}
+}
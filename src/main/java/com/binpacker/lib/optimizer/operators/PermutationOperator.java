@@ -0,0 +1,19 @@
+package com.binpacker.lib.optimizer.operators;
+
+import java.util.SplittableRandom;
+
+/**
+ * Breeds a child order from one or two parent orders. Parents are never
+ * modified, the child is always a new array.
+ */
+public interface PermutationOperator {
+
+	String getName();
+
+	/**
+	 * Whether the operator uses the second parent.
+	 */
+	boolean isCrossover();
+
+	int[] apply(int[] parent1, int[] parent2, SplittableRandom random);
+}
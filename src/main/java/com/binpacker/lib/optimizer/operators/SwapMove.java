@@ -0,0 +1,43 @@
+package com.binpacker.lib.optimizer.operators;
+
+import java.util.SplittableRandom;
+
+/**
+ * Swaps two random genes.
+ */
+public class SwapMove implements PermutationOperator {
+
+	@Override
+	public String getName() {
+		return "Swap";
+	}
+
+	@Override
+	public boolean isCrossover() {
+		return false;
+	}
+
+	@Override
+	public int[] apply(int[] parent1, int[] parent2, SplittableRandom random) {
+		int[] child = parent1.clone();
+		swap(child, random);
+		return child;
+	}
+
+	/**
+	 * Swaps two distinct random genes of the order in place.
+	 */
+	public static void swap(int[] order, SplittableRandom random) {
+		if (order.length < 2) {
+			return;
+		}
+		int index1 = random.nextInt(order.length);
+		int index2 = random.nextInt(order.length - 1);
+		if (index2 >= index1) {
+			index2++;
+		}
+		int t = order[index1];
+		order[index1] = order[index2];
+		order[index2] = t;
+	}
+}
@@ -0,0 +1,41 @@
+package com.binpacker.lib.solver.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.binpacker.lib.common.Bin;
+
+/**
+ * Snapshot of a solver's open bins after the first {@link #placed} boxes of an
+ * order were packed. Any order starting with the same boxes can resume packing
+ * from it.
+ */
+public class PackingState {
+	public final int placed;
+	private final List<Bin> bins;
+
+	private PackingState(int placed, List<Bin> bins) {
+		this.placed = placed;
+		this.bins = bins;
+	}
+
+	public static PackingState capture(List<Bin> bins, int placed) {
+		List<Bin> copies = new ArrayList<>(bins.size());
+		for (Bin bin : bins) {
+			copies.add(bin.copy());
+		}
+		return new PackingState(placed, copies);
+	}
+
+	/**
+	 * Replaces the contents of bins with copies of the snapshot, and returns the
+	 * index of the next box to place.
+	 */
+	public int restoreInto(List<Bin> bins) {
+		bins.clear();
+		for (Bin bin : this.bins) {
+			bins.add(bin.copy());
+		}
+		return placed;
+	}
+}
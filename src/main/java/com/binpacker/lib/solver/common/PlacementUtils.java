@@ -306,6 +306,29 @@ public class PlacementUtils {
 		}
 	}
 
+	/**
+	 * Recomputes the empty maximal spaces of a bin from the boxes already placed
+	 * in it, starting from the full bin volume. Also recomputes the bin weight.
+	 */
+	public static void rebuildFreeSpacesEMS(Bin bin) {
+		bin.freeSpaces.clear();
+		bin.freeSpaces.add(new Space(0, 0, 0, bin.w, bin.h, bin.d));
+		bin.weight = 0;
+		bin.utilCounter = 0;
+
+		for (Box box : bin.boxes) {
+			pruneCollidingSpacesEMS(box, bin);
+			bin.weight += box.weight;
+
+			bin.utilCounter++;
+			if (bin.utilCounter > 10) {
+				pruneWrappedSpacesBinEMS(bin);
+				bin.utilCounter = 0;
+			}
+		}
+		pruneWrappedSpacesBinEMS(bin);
+	}
+
 	public static float calculateScoreEMS(Box box, Space space) {
 		// Add a component for distance from origin (smaller x, y, z is better)
 		// Assuming space.x, space.y, space.z are non-negative.
@@ -0,0 +1,108 @@
+package com.binpacker.lib.solver.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+
+/**
+ * Per-call options for a {@link com.binpacker.lib.solver.cpusolvers.ResumableSolver}.
+ */
+public class SolveOptions {
+
+	// Resume packing from this state instead of from an empty bin. It must come
+	// from an order that starts with the same boxes as the one being solved
+	public PackingState resumeFrom;
+
+	// Snapshot the packing state every checkpointInterval boxes, 0 for never
+	public int checkpointInterval;
+
+	// Output, the snapshots taken during the solve, in order
+	public List<PackingState> checkpoints = new ArrayList<>();
+
+	// Give up once the packing can no longer score better than this: below this
+	// utilization in fixed bin mode, above this extent with a growing bin. NaN
+	// for no cutoff
+	public double cutoff = Double.NaN;
+
+	// Polled before each box, the solve stops once it returns true. null to
+	// never stop
+	public BooleanSupplier cancellation;
+
+	// Output, set if the solve stopped early because of the cutoff or a
+	// cancellation. The result is then incomplete
+	public boolean aborted;
+
+	private double totalVolume = -1;
+	private float extent;
+	private final List<Integer> scanned = new ArrayList<>();
+
+	/**
+	 * Called by solvers before placing box number placed.
+	 */
+	public void checkpoint(List<Bin> bins, int placed) {
+		if (checkpointInterval <= 0 || placed == 0 || placed % checkpointInterval != 0) {
+			return;
+		}
+		if (resumeFrom != null && placed <= resumeFrom.placed) {
+			return;
+		}
+		checkpoints.add(PackingState.capture(bins, placed));
+	}
+
+	/**
+	 * Called by solvers before placing each box. Returns true, and marks the
+	 * solve as aborted, once it was cancelled or the score is bound to miss the
+	 * cutoff.
+	 */
+	public boolean shouldStop(List<Box> boxes, List<Bin> bins, boolean growingBin) {
+		if (cancellation != null && cancellation.getAsBoolean()) {
+			aborted = true;
+			return true;
+		}
+		return checkCutoff(boxes, bins, growingBin);
+	}
+
+	/**
+	 * Returns true, and marks the solve as aborted, once the score is bound to
+	 * miss the cutoff.
+	 *
+	 * With fixed bins the score is the utilization of all bins but the last, so
+	 * with n bins open it is at most the volume of all boxes over n-1 bins. With
+	 * a growing bin the score is the largest extent, which only increases.
+	 */
+	public boolean checkCutoff(List<Box> boxes, List<Bin> bins, boolean growingBin) {
+		if (Double.isNaN(cutoff)) {
+			return false;
+		}
+
+		if (growingBin) {
+			// Only look at boxes placed since the last call
+			for (int b = 0; b < bins.size(); b++) {
+				List<Box> placed = bins.get(b).boxes;
+				if (scanned.size() <= b) {
+					scanned.add(0);
+				}
+				for (int i = scanned.get(b); i < placed.size(); i++) {
+					Box box = placed.get(i);
+					extent = Math.max(extent, box.position.x + box.size.x);
+					extent = Math.max(extent, box.position.y + box.size.y);
+					extent = Math.max(extent, box.position.z + box.size.z);
+				}
+				scanned.set(b, placed.size());
+			}
+			aborted = extent > cutoff;
+		} else if (bins.size() >= 2) {
+			if (totalVolume < 0) {
+				totalVolume = 0;
+				for (Box box : boxes) {
+					totalVolume += box.getVolume();
+				}
+			}
+			aborted = totalVolume / ((bins.size() - 1) * bins.get(0).getVolume()) < cutoff;
+		}
+		return aborted;
+	}
+}
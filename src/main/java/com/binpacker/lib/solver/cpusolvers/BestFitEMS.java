@@ -8,9 +8,10 @@ import com.binpacker.lib.common.Bin;
 import com.binpacker.lib.common.Point3f;
 import com.binpacker.lib.common.Space;
 import com.binpacker.lib.solver.common.PlacementUtils;
+import com.binpacker.lib.solver.common.SolveOptions;
 import com.binpacker.lib.solver.common.SolverProperties;
 
-public class BestFitEMS implements SolverInterface {
+public class BestFitEMS implements ResumableSolver {
 
 	private Bin binTemplate;
 	private boolean growingBin;
@@ -18,19 +19,17 @@ public class BestFitEMS implements SolverInterface {
 	private List<Integer> rotationAxes;
 	private float weightLimit;
 
+	// Scratch state, reused between solves by the owning thread
+	private final List<Bin> activeBins = new ArrayList<>();
+
 	@Override
 	public void init(SolverProperties properties) {
-		this.binTemplate = properties.bin;
+		// Work on a copy, the template passed in is shared between solvers
+		this.binTemplate = new Bin(0, properties.bin.w, properties.bin.h, properties.bin.d);
 		this.growingBin = properties.growingBin;
 		this.growAxis = properties.growAxis;
 		this.rotationAxes = properties.rotationAxes;
 		this.weightLimit = properties.weight;
-	}
-
-	@Override
-	public List<List<Box>> solve(List<Box> boxes) {
-		List<Bin> activeBins = new ArrayList<>();
-		List<List<Box>> result = new ArrayList<>();
 
 		if (growingBin) {
 			switch (growAxis) {
@@ -49,10 +48,31 @@ public class BestFitEMS implements SolverInterface {
 					break;
 			}
 		}
+	}
 
-		activeBins.add(new Bin(0, binTemplate.w, binTemplate.h, binTemplate.d));
+	@Override
+	public List<List<Box>> solve(List<Box> boxes) {
+		return solve(boxes, new SolveOptions());
+	}
 
-		for (Box box : boxes) {
+	@Override
+	public List<List<Box>> solve(List<Box> boxes, SolveOptions options) {
+		activeBins.clear();
+		List<List<Box>> result = new ArrayList<>();
+
+		int start = 0;
+		if (options.resumeFrom != null) {
+			start = options.resumeFrom.restoreInto(activeBins);
+		} else {
+			activeBins.add(new Bin(0, binTemplate.w, binTemplate.h, binTemplate.d));
+		}
+
+		for (int b = start; b < boxes.size(); b++) {
+			options.checkpoint(activeBins, b);
+			if (options.shouldStop(boxes, activeBins, growingBin)) {
+				break;
+			}
+			Box box = boxes.get(b);
 			boolean placed = false;
 			for (Bin bin : activeBins) {
 				// Skip bin if weight limit would be exceeded
@@ -143,6 +163,11 @@ public class BestFitEMS implements SolverInterface {
 		return result;
 	}
 
+	@Override
+	public void reset() {
+		activeBins.clear();
+	}
+
 	public void release() {
 		// not used by this
 	}
@@ -0,0 +1,15 @@
+package com.binpacker.lib.solver.cpusolvers;
+
+import java.util.List;
+
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.solver.common.SolveOptions;
+
+/**
+ * A solver that can snapshot its state along the order and resume from such a
+ * snapshot, so orders sharing a prefix do not pack that prefix again.
+ */
+public interface ResumableSolver extends SolverInterface {
+
+	List<List<Box>> solve(List<Box> boxes, SolveOptions options);
+}
@@ -5,10 +5,22 @@ import java.util.List;
 import com.binpacker.lib.common.Box;
 import com.binpacker.lib.solver.common.SolverProperties;
 
+/**
+ * A CPU packing heuristic. Instances are reusable but not thread-safe: an
+ * optimizer keeps one instance per worker thread and calls {@link #solve}
+ * repeatedly. Implementations must not modify the template bin passed to
+ * {@link #init}.
+ */
 public interface SolverInterface {
 	void init(SolverProperties properties);
 
 	List<List<Box>> solve(List<Box> boxes);
 
+	/**
+	 * Drops any state left over from the previous solve, so the next solve
+	 * behaves exactly like one on a freshly initialized instance.
+	 */
+	void reset();
+
 	void release();
 }
@@ -0,0 +1,208 @@
+package com.binpacker.lib.solver.online;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Space;
+import com.binpacker.lib.solver.common.PlacementUtils;
+import com.binpacker.lib.solver.common.SolverProperties;
+
+/**
+ * Incremental packing session for boxes that arrive one at a time.
+ *
+ * Boxes are placed first-fit (BSP) into a bounded window of open bins. When a
+ * new bin is needed and the window is full, the oldest open bin is closed and
+ * its free spaces are dropped, so the work per box is bounded by the window
+ * size and does not grow with the number of boxes already streamed.
+ *
+ * The session is also a {@link Flow.Processor}: it requests at most
+ * {@code bufferSize} boxes ahead from its upstream and publishes a
+ * {@link PackedBox} for every box, placed or rejected. Publishing blocks while a downstream
+ * subscriber's buffer is full, which in turn stops further requests upstream.
+ */
+public class OnlinePackingSession implements Flow.Processor<Box, PackedBox>, AutoCloseable {
+
+	private final Bin binTemplate;
+	private final boolean growingBin;
+	private final List<Integer> rotationAxes;
+	private final float weightLimit;
+	private final int maxOpenBins;
+
+	private final List<Bin> bins = new ArrayList<>();
+	private final Deque<OpenBin> openBins = new ArrayDeque<>();
+
+	private final SubmissionPublisher<PackedBox> publisher;
+	private final int bufferSize;
+	private Flow.Subscription subscription;
+
+	public OnlinePackingSession(SolverProperties properties, int maxOpenBins, int bufferSize) {
+		this(properties, maxOpenBins, bufferSize, ForkJoinPool.commonPool());
+	}
+
+	public OnlinePackingSession(SolverProperties properties, int maxOpenBins, int bufferSize, Executor executor) {
+		// Work on a copy so the caller's template is never resized
+		this.binTemplate = new Bin(0, properties.bin.w, properties.bin.h, properties.bin.d);
+		this.growingBin = properties.growingBin;
+		this.rotationAxes = properties.rotationAxes;
+		this.weightLimit = properties.weight;
+		this.maxOpenBins = Math.max(1, maxOpenBins);
+		this.bufferSize = Math.max(1, bufferSize);
+		this.publisher = new SubmissionPublisher<>(executor, this.bufferSize);
+
+		if (growingBin) {
+			switch (properties.growAxis) {
+				case "x":
+					binTemplate.w = Integer.MAX_VALUE;
+					break;
+				case "y":
+					binTemplate.h = Integer.MAX_VALUE;
+					break;
+				case "z":
+					binTemplate.d = Integer.MAX_VALUE;
+					break;
+				default:
+					System.err.println("Invalid growAxis specified: " + properties.growAxis);
+					binTemplate.h = Integer.MAX_VALUE;
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Places a single box and returns where it went, or a rejected
+	 * {@link PackedBox} if the box does not fit into an empty bin.
+	 */
+	public synchronized PackedBox place(Box box) {
+		double boxVolume = box.getVolume();
+
+		for (OpenBin open : openBins) {
+			if (open.freeVolume < boxVolume) {
+				continue;
+			}
+			if (weightLimit > 0 && open.bin.weight + box.weight > weightLimit) {
+				continue;
+			}
+			PackedBox packed = placeInBin(box, open);
+			if (packed != null) {
+				return packed;
+			}
+		}
+
+		// Only open a bin for a box that fits into it
+		if ((growingBin && !bins.isEmpty()) || !fitsEmptyBin(box)) {
+			return new PackedBox(PackedBox.REJECTED, box);
+		}
+
+		PackedBox packed = placeInBin(box, openBin());
+		return packed != null ? packed : new PackedBox(PackedBox.REJECTED, box);
+	}
+
+	private boolean fitsEmptyBin(Box box) {
+		if (weightLimit > 0 && box.weight > weightLimit) {
+			return false;
+		}
+		Space empty = new Space(0, 0, 0, binTemplate.w, binTemplate.h, binTemplate.d);
+		return PlacementUtils.findFit(box, empty, rotationAxes) != null;
+	}
+
+	private PackedBox placeInBin(Box box, OpenBin open) {
+		Bin bin = open.bin;
+		double boxVolume = box.getVolume();
+		for (int i = 0; i < bin.freeSpaces.size(); i++) {
+			Space space = bin.freeSpaces.get(i);
+			if (space.w * space.h * space.d < boxVolume) {
+				continue;
+			}
+			Box fittedBox = PlacementUtils.findFit(box, space, rotationAxes);
+			if (fittedBox != null) {
+				PlacementUtils.placeBoxBSP(fittedBox, bin, i);
+				open.freeVolume -= boxVolume;
+				return new PackedBox(bin.index, bin.boxes.get(bin.boxes.size() - 1));
+			}
+		}
+		return null;
+	}
+
+	private OpenBin openBin() {
+		if (openBins.size() >= maxOpenBins) {
+			// Closed bins keep their boxes but no longer take part in placement
+			openBins.removeFirst().bin.freeSpaces.clear();
+		}
+		Bin bin = new Bin(bins.size(), binTemplate.w, binTemplate.h, binTemplate.d);
+		bins.add(bin);
+		OpenBin open = new OpenBin(bin);
+		openBins.addLast(open);
+		return open;
+	}
+
+	/**
+	 * Snapshot of the current packing, one list of placed boxes per bin.
+	 */
+	public synchronized List<List<Box>> getBins() {
+		List<List<Box>> result = new ArrayList<>();
+		for (Bin bin : bins) {
+			result.add(new ArrayList<>(bin.boxes));
+		}
+		return result;
+	}
+
+	public int estimateLag() {
+		return publisher.estimateMaximumLag();
+	}
+
+	// ---- Flow.Processor ----
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super PackedBox> subscriber) {
+		publisher.subscribe(subscriber);
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		this.subscription = subscription;
+		subscription.request(bufferSize);
+	}
+
+	@Override
+	public void onNext(Box box) {
+		// Blocks while any subscriber is bufferSize items behind
+		publisher.submit(place(box));
+		subscription.request(1);
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		publisher.closeExceptionally(throwable);
+	}
+
+	@Override
+	public void onComplete() {
+		publisher.close();
+	}
+
+	@Override
+	public void close() {
+		if (subscription != null) {
+			subscription.cancel();
+		}
+		publisher.close();
+	}
+
+	private static class OpenBin {
+		final Bin bin;
+		double freeVolume;
+
+		OpenBin(Bin bin) {
+			this.bin = bin;
+			this.freeVolume = bin.getVolume();
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package com.binpacker.lib.solver.online;
+
+import com.binpacker.lib.common.Box;
+
+/**
+ * A box placed by an online packing session, together with the index of the
+ * bin it ended up in. A box that fits into no empty bin is rejected: its bin
+ * index is {@link #REJECTED} and the box is the one given.
+ */
+public class PackedBox {
+	public static final int REJECTED = -1;
+
+	public final int binIndex;
+	public final Box box;
+
+	public PackedBox(int binIndex, Box box) {
+		this.binIndex = binIndex;
+		this.box = box;
+	}
+
+	public boolean isRejected() {
+		return binIndex == REJECTED;
+	}
+
+	@Override
+	public String toString() {
+		if (isRejected()) {
+			return String.format("PackedBox(rejected, %s)", box);
+		}
+		return String.format("PackedBox(bin=%d, %s)", binIndex, box);
+	}
+}
@@ -9,7 +9,14 @@ public interface ParallelSolverInterface {
 
 	void init(SolverProperties properties);
 
-	List<Double> solve(List<Box> boxes, List<List<Integer>> orders);
+	/**
+	 * Scores several orders of the same boxes at once.
+	 *
+	 * @param orders all orders back to back, each a permutation of the box
+	 *               indices, so orders.length is a multiple of boxes.size()
+	 * @return one score per order
+	 */
+	List<Double> solve(List<Box> boxes, int[] orders);
 
 	void release();
 
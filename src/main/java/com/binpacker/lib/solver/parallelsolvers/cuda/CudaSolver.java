@@ -15,7 +15,7 @@ public class CudaSolver implements ParallelSolverInterface {
 	}
 
 	@Override
-	public List<Double> solve(List<Box> boxes, List<List<Integer>> orders) {
+	public List<Double> solve(List<Box> boxes, int[] orders) {
 		System.out.println("Solving with CUDA Solver (Dummy) - returning empty results");
 		return Collections.emptyList();
 	}
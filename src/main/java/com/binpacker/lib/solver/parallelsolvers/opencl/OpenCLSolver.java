@@ -52,7 +52,7 @@ public class OpenCLSolver implements ParallelSolverInterface {
 		return kernel != null;
 	}
 
-	public void compileKernel(int maxBins, int maxSpaces) {
+	public synchronized void compileKernel(int maxBins, int maxSpaces) {
 		if (kernel != null)
 			return; // Already compiled
 
@@ -83,9 +83,18 @@ public class OpenCLSolver implements ParallelSolverInterface {
 	private com.binpacker.lib.ocl.OpenCLDevice devicePreference;
 
 	@Override
-	public List<Double> solve(List<Box> boxes, List<List<Integer>> orders) {
+	public List<Double> solve(List<Box> boxes, int[] orders) {
+		return solve(boxes, orders, 0.0f);
+	}
+
+	/**
+	 * Like {@link #solve(List, int[])}, but orders stop as soon as their score is
+	 * bound to stay below cutoff, and score -inf. Calls are serialized, as they
+	 * share one kernel.
+	 */
+	public synchronized List<Double> solve(List<Box> boxes, int[] orders, float cutoff) {
 		int numBoxes = boxes.size();
-		int numOrders = orders.size();
+		int numOrders = numBoxes == 0 ? 0 : orders.length / numBoxes;
 
 		if (numBoxes == 0 || numOrders == 0) {
 			return new ArrayList<>();
@@ -101,13 +110,8 @@ public class OpenCLSolver implements ParallelSolverInterface {
 			boxData[i * 4 + 3] = b.weight;
 		}
 
-		int[] orderData = new int[numOrders * numBoxes];
-		for (int i = 0; i < numOrders; i++) {
-			List<Integer> order = orders.get(i);
-			for (int j = 0; j < numBoxes; j++) {
-				orderData[i * numBoxes + j] = order.get(j);
-			}
-		}
+		// Orders are already laid out the way the kernel reads them
+		int[] orderData = orders;
 
 		// 2. Allocate buffers
 
@@ -161,6 +165,7 @@ public class OpenCLSolver implements ParallelSolverInterface {
 		clSetKernelArg(kernel, a++, Sizeof.cl_float, Pointer.to(new float[] { binTemplate.d }));
 		clSetKernelArg(kernel, a++, Sizeof.cl_float, Pointer.to(new float[] { binTemplate.maxWeight }));
 		clSetKernelArg(kernel, a++, Sizeof.cl_int, Pointer.to(new int[] { rotationMask }));
+		clSetKernelArg(kernel, a++, Sizeof.cl_float, Pointer.to(new float[] { cutoff }));
 
 		// 4. Run kernel
 		long[] globalWorkSize = new long[] { numOrders };
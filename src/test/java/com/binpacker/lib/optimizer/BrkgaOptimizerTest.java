@@ -0,0 +1,76 @@
+package com.binpacker.lib.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.solver.TestSolvers;
+import com.binpacker.lib.solver.cpusolvers.SolverInterface;
+
+class BrkgaOptimizerTest {
+
+	private BrkgaOptimizer<Supplier<SolverInterface>> optimizer(boolean threaded) {
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(2 + i % 3, 3 + i % 2, 2 + i % 4)));
+		}
+		BrkgaOptimizer<Supplier<SolverInterface>> optimizer = new BrkgaOptimizer<>(CPUOptimizer::new);
+		TestOptimizers.initialize(optimizer, 23, TestSolvers.bestFitEms(new Bin(0, 10, 10, 10)), boxes, new Bin(0, 10,
+				10, 10), 12, 3, threaded);
+		return optimizer;
+	}
+
+	@Test
+	void testDecodeSortsByKey() {
+		float[] keys = { 9f, 0.7f, 0.2f, 0.9f, 0.2f, 0.5f, 9f };
+		assertArrayEquals(new int[] { 1, 3, 4, 0, 2 }, BrkgaOptimizer.decode(keys, 1, 5));
+	}
+
+	@Test
+	void testBestNeverGetsWorse() {
+		BrkgaOptimizer<Supplier<SolverInterface>> optimizer = optimizer(true);
+		try {
+			double previous = Double.NEGATIVE_INFINITY;
+			for (int g = 0; g < 5; g++) {
+				List<List<Box>> best = optimizer.executeNextGeneration();
+				double score = optimizer.rate(best, optimizer.bin);
+				assertTrue(score >= previous);
+				previous = score;
+
+				Set<Integer> ids = new HashSet<>();
+				best.forEach(bin -> bin.forEach(box -> ids.add(box.id)));
+				assertEquals(40, ids.size());
+			}
+			assertEquals(12, optimizer.boxOrders.size());
+		} finally {
+			optimizer.release();
+		}
+	}
+
+	@Test
+	void testSameSeedGivesSamePopulation() {
+		BrkgaOptimizer<Supplier<SolverInterface>> serial = optimizer(false);
+		BrkgaOptimizer<Supplier<SolverInterface>> parallel = optimizer(true);
+		try {
+			for (int g = 0; g < 3; g++) {
+				serial.executeNextGeneration();
+				parallel.executeNextGeneration();
+			}
+			for (int i = 0; i < serial.boxOrders.size(); i++) {
+				assertArrayEquals(serial.boxOrders.get(i), parallel.boxOrders.get(i));
+			}
+		} finally {
+			serial.release();
+			parallel.release();
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package com.binpacker.lib.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.solver.TestSolvers;
+import com.binpacker.lib.solver.cpusolvers.SolverInterface;
+
+class CheckpointTest {
+
+	private Supplier<SolverInterface> solvers() {
+		return TestSolvers.bestFitEms(new Bin(0, 8, 8, 8));
+	}
+
+	private CPUOptimizer optimizer(long seed) {
+		CPUOptimizer optimizer = new CPUOptimizer();
+		optimizer.setLocalSearch(2);
+		optimizer.setSurrogateScreening(2);
+		return TestOptimizers.initialize(optimizer, seed, solvers(), TestBoxes.mixed(40), new Bin(0, 8, 8, 8), 10, 3,
+				true);
+	}
+
+	@Test
+	void testResumesExactly() throws IOException {
+		Path file = Files.createTempFile("optimizer", ".ckpt");
+		CPUOptimizer uninterrupted = optimizer(17);
+		CPUOptimizer saved = optimizer(17);
+		// Another seed, which the checkpoint replaces
+		CPUOptimizer resumed = optimizer(99);
+		try {
+			for (int g = 0; g < 4; g++) {
+				uninterrupted.executeNextGeneration();
+				saved.executeNextGeneration();
+			}
+			saved.saveCheckpoint(file);
+			resumed.loadCheckpoint(file);
+			assertEquals(17, resumed.getSeed());
+
+			for (int g = 0; g < 4; g++) {
+				List<List<Box>> expected = uninterrupted.executeNextGeneration();
+				List<List<Box>> actual = resumed.executeNextGeneration();
+				assertEquals(uninterrupted.rate(expected, uninterrupted.bin), resumed.rate(actual, resumed.bin), 1e-12);
+			}
+			assertEquals(uninterrupted.boxOrders.size(), resumed.boxOrders.size());
+			for (int i = 0; i < uninterrupted.boxOrders.size(); i++) {
+				assertArrayEquals(uninterrupted.boxOrders.get(i), resumed.boxOrders.get(i));
+			}
+			// Same operator statistics, except for the time taken
+			double[] expected = uninterrupted.getOperatorPortfolio().getState();
+			double[] actual = resumed.getOperatorPortfolio().getState();
+			int operators = expected.length / 6;
+			Arrays.fill(expected, 4 * operators, 5 * operators, 0);
+			Arrays.fill(actual, 4 * operators, 5 * operators, 0);
+			assertArrayEquals(expected, actual, 1e-12);
+		} finally {
+			uninterrupted.release();
+			saved.release();
+			resumed.release();
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void testLargePopulationRoundTrip() throws IOException {
+		Path file = Files.createTempFile("optimizer", ".ckpt");
+		CPUOptimizer saved = new CPUOptimizer();
+		CPUOptimizer loaded = new CPUOptimizer();
+		try {
+			TestOptimizers.initialize(saved, 5, solvers(), TestBoxes.mixed(300), new Bin(0, 8, 8, 8), 3000, 10, false);
+			TestOptimizers.initialize(loaded, 6, solvers(), TestBoxes.mixed(300), new Bin(0, 8, 8, 8), 3000, 10, false);
+			saved.saveCheckpoint(file);
+			loaded.loadCheckpoint(file);
+			assertEquals(saved.boxOrders.size(), loaded.boxOrders.size());
+			for (int i = 0; i < saved.boxOrders.size(); i++) {
+				assertArrayEquals(saved.boxOrders.get(i), loaded.boxOrders.get(i));
+			}
+		} finally {
+			saved.release();
+			loaded.release();
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void testRejectsOtherInstanceAndDamage() throws IOException {
+		Path file = Files.createTempFile("optimizer", ".ckpt");
+		CPUOptimizer saved = optimizer(1);
+		CPUOptimizer other = new CPUOptimizer();
+		try {
+			saved.saveCheckpoint(file);
+			TestOptimizers.initialize(other, 1, solvers(), TestBoxes.mixed(41), new Bin(0, 8, 8, 8), 10, 3, true);
+			assertThrows(IllegalArgumentException.class, () -> other.loadCheckpoint(file));
+
+			byte[] bytes = Files.readAllBytes(file);
+			bytes[bytes.length - 1] ^= 1;
+			Files.write(file, bytes);
+			CPUOptimizer same = optimizer(1);
+			try {
+				assertThrows(IOException.class, () -> same.loadCheckpoint(file));
+			} finally {
+				same.release();
+			}
+		} finally {
+			saved.release();
+			other.release();
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	void testRejectsCheckpointingUpFrontWhenStateCannotBeSaved() throws IOException {
+		Path file = Files.createTempFile("optimizer", ".ckpt");
+		SteadyStateOptimizer steadyState = new SteadyStateOptimizer(1);
+		ParallelTemperingOptimizer<Supplier<SolverInterface>> tempering = new ParallelTemperingOptimizer<>(
+				CPUOptimizer::new, 4, 5);
+		IslandOptimizer<Supplier<SolverInterface>> islands = new IslandOptimizer<>(() -> new SteadyStateOptimizer(1),
+				2, 2, 1, false);
+		try {
+			assertThrows(UnsupportedOperationException.class, () -> steadyState.setCheckpointing(file, 1));
+			assertThrows(UnsupportedOperationException.class, () -> tempering.setCheckpointing(file, 1));
+			steadyState.setCheckpointing(null, 1);
+
+			// The islands are only known once initialized, so the run is refused
+			islands.setCheckpointing(file, 1);
+			TestOptimizers.initialize(islands, 1, solvers(), TestBoxes.mixed(40), new Bin(0, 8, 8, 8), 10, 3, true);
+			assertThrows(UnsupportedOperationException.class, () -> islands.optimize(null, 1));
+			assertThrows(UnsupportedOperationException.class, () -> islands.saveCheckpoint(file));
+		} finally {
+			islands.release();
+			Files.deleteIfExists(file);
+		}
+	}
+}
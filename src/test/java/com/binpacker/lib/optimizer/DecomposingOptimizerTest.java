@@ -0,0 +1,115 @@
+package com.binpacker.lib.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.solver.TestSolvers;
+import com.binpacker.lib.solver.cpusolvers.FirstFit3D;
+
+class DecomposingOptimizerTest {
+
+	@Test
+	void testAllBoxesPackedAcrossGroups() {
+		List<Box> boxes = new ArrayList<>();
+		// 60 cubes, 8 of which fill a bin: 7 full bins and one with 4 cubes
+		for (int i = 0; i < 60; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(5, 5, 5)));
+		}
+
+		Bin bin = new Bin(0, 10, 10, 10);
+		DecomposingOptimizer optimizer = new DecomposingOptimizer(TestSolvers.firstFit(new Bin(0, 10, 10, 10)), bin, 0,
+				List.of(0, 1, 2), 3, 6, 2, 2);
+
+		assertEquals(3, optimizer.partition(boxes).size());
+
+		List<List<Box>> result;
+		try {
+			result = optimizer.optimize(boxes);
+		} finally {
+			optimizer.release();
+		}
+
+		Set<Integer> ids = new HashSet<>();
+		for (List<Box> packed : result) {
+			for (Box box : packed) {
+				ids.add(box.id);
+			}
+		}
+		assertEquals(60, ids.size());
+		assertEquals(8, result.size());
+	}
+
+	@Test
+	void testEveryBoxComesOutOnce() {
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 45; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(1 + i % 4, 2 + i % 3, 3 + i % 5)));
+		}
+
+		Bin bin = new Bin(0, 10, 10, 10);
+		assertThrows(IllegalArgumentException.class,
+				() -> new DecomposingOptimizer(FirstFit3D::new, bin, 0, List.of(0, 1, 2), 2, 6, 2, 0));
+
+		DecomposingOptimizer optimizer = new DecomposingOptimizer(TestSolvers.firstFit(new Bin(0, 10, 10, 10)), bin, 0,
+				List.of(0, 1, 2), 2, 6, 2, 1);
+
+		List<List<Box>> result;
+		try {
+			result = optimizer.optimize(boxes);
+		} finally {
+			optimizer.release();
+		}
+
+		List<Integer> ids = new ArrayList<>();
+		for (List<Box> packed : result) {
+			for (Box box : packed) {
+				ids.add(box.id);
+			}
+		}
+		assertEquals(boxes.size(), ids.size());
+		assertEquals(boxes.size(), new HashSet<>(ids).size());
+	}
+
+	@Test
+	void testBoxesFittingNoBinAreLeftOut() {
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(5, 5, 5), 1));
+		}
+		// Too long for any orientation, and too heavy
+		boxes.add(new Box(20, new Point3f(0, 0, 0), new Point3f(11, 2, 2), 1));
+		boxes.add(new Box(21, new Point3f(0, 0, 0), new Point3f(2, 2, 2), 50));
+		// Fits only when turned
+		boxes.add(new Box(22, new Point3f(0, 0, 0), new Point3f(2, 2, 10), 1));
+
+		Bin bin = new Bin(0, 10, 10, 5);
+		DecomposingOptimizer optimizer = new DecomposingOptimizer(TestSolvers.firstFit(bin), bin, 40,
+				List.of(0, 1, 2), 2, 6, 2, 1);
+
+		List<List<Box>> result;
+		try {
+			result = optimizer.optimize(boxes);
+		} finally {
+			optimizer.release();
+		}
+
+		Set<Integer> ids = new HashSet<>();
+		for (List<Box> packed : result) {
+			for (Box box : packed) {
+				ids.add(box.id);
+			}
+		}
+		assertEquals(21, ids.size());
+		assertTrue(ids.contains(22));
+		assertEquals(List.of(20, 21), optimizer.getRejected().stream().map(box -> box.id).toList());
+	}
+}
@@ -0,0 +1,138 @@
+package com.binpacker.lib.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.solver.TestSolvers;
+import com.binpacker.lib.solver.common.SolveOptions;
+import com.binpacker.lib.solver.cpusolvers.FirstFit3D;
+
+class FitnessCacheTest {
+
+	private List<Box> boxes() {
+		List<Box> boxes = new ArrayList<>();
+		boxes.add(new Box(0, new Point3f(0, 0, 0), new Point3f(2, 2, 2)));
+		boxes.add(new Box(1, new Point3f(0, 0, 0), new Point3f(2, 2, 2)));
+		boxes.add(new Box(2, new Point3f(0, 0, 0), new Point3f(3, 1, 1)));
+		return boxes;
+	}
+
+	@Test
+	void testIdenticalBoxesShareKey() {
+		FitnessCache cache = new FitnessCache(boxes(), 10);
+
+		assertEquals(cache.key(new int[] { 0, 1, 2 }), cache.key(new int[] { 1, 0, 2 }));
+		assertNotEquals(cache.key(new int[] { 0, 1, 2 }), cache.key(new int[] { 0, 2, 1 }));
+	}
+
+	@Test
+	void testLeastRecentlyUsedIsEvicted() {
+		FitnessCache cache = new FitnessCache(boxes(), 2);
+		FitnessCache.Key a = cache.key(new int[] { 0, 1, 2 });
+		FitnessCache.Key b = cache.key(new int[] { 0, 2, 1 });
+		FitnessCache.Key c = cache.key(new int[] { 2, 0, 1 });
+
+		cache.put(a, 1.0);
+		cache.put(b, 2.0);
+		assertEquals(1.0, cache.get(a), 0.0);
+		cache.put(c, 3.0);
+
+		assertEquals(2, cache.size());
+		assertNull(cache.get(b));
+		assertEquals(3.0, cache.get(c), 0.0);
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	void testElitesAreNotSolvedAgain() {
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(1 + i % 4, 2, 3)));
+		}
+
+		int[] solves = new int[1];
+		CPUOptimizer optimizer = new CPUOptimizer();
+		TestOptimizers.initialize(optimizer, 7, () -> TestSolvers.init(new FirstFit3D() {
+			@Override
+			public List<List<Box>> solve(List<Box> boxes) {
+				solves[0]++;
+				return super.solve(boxes);
+			}
+		}, new Bin(0, 6, 6, 6), List.of(0, 1, 2)), boxes, new Bin(0, 6, 6, 6), 10, 4, false);
+
+		try {
+			for (int i = 0; i < 5; i++) {
+				List<List<Box>> result = optimizer.executeNextGeneration();
+				assertEquals(12, result.stream().mapToInt(List::size).sum());
+			}
+		} finally {
+			optimizer.release();
+		}
+
+		FitnessCache cache = optimizer.getFitnessCache();
+		assertTrue(cache.getHits() >= 4 * 4, "elites of every later generation are cached");
+		assertTrue(solves[0] < 5 * 10);
+	}
+
+	@Test
+	void testOnlyCompletePackingsAreCached() {
+		Bin bin = new Bin(0, 8, 8, 8);
+		boolean[] stop = new boolean[1];
+		int[] solves = new int[1];
+		CPUOptimizer optimizer = new CPUOptimizer();
+		TestOptimizers.initialize(optimizer, 3, () -> TestSolvers.init(new FirstFit3D() {
+			@Override
+			public List<List<Box>> solve(List<Box> boxes, SolveOptions options) {
+				List<List<Box>> solved = super.solve(boxes, options);
+				// The stop comes once the third order is packed
+				stop[0] |= ++solves[0] == 3;
+				return solved;
+			}
+		}, bin, List.of(0, 1, 2)), TestBoxes.mixed(40), bin, 10, 2, false);
+		optimizer.stopWith(() -> stop[0]);
+		FitnessCache cache = optimizer.getFitnessCache();
+		try {
+			List<int[]> orders = new ArrayList<>();
+			for (int k = 0; k < 6; k++) {
+				int[] order = new int[40];
+				for (int i = 0; i < 40; i++) {
+					order[i] = (i + k) % 40;
+				}
+				orders.add(order);
+			}
+			List<Solution> scored = optimizer.evaluateAligned(orders);
+			for (int k = 0; k < 6; k++) {
+				Solution solution = scored.get(k);
+				Double cached = cache.get(cache.key(orders.get(k)));
+				if (k < 3) {
+					// Packed before the stop, so the score is real
+					assertFalse(solution.aborted);
+					assertEquals(solution.score, cached, 0.0);
+				} else {
+					assertTrue(solution.aborted);
+					assertNull(cached);
+				}
+			}
+
+			// Cut short by the cutoff, no packing can fill its bins twice over
+			stop[0] = false;
+			solves[0] = 0;
+			optimizer.cutoff = 2;
+			Solution bounded = optimizer.evaluateAligned(orders.subList(3, 4)).get(0);
+			assertEquals(1, solves[0]);
+			assertTrue(bounded.aborted);
+			assertTrue(Double.isInfinite(bounded.score));
+			assertNull(cache.get(cache.key(orders.get(3))));
+		} finally {
+			optimizer.release();
+		}
+	}
+}
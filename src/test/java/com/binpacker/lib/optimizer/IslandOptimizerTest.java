@@ -0,0 +1,77 @@
+package com.binpacker.lib.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.solver.TestSolvers;
+import com.binpacker.lib.solver.cpusolvers.SolverInterface;
+
+class IslandOptimizerTest {
+
+	@Test
+	void testIslandsMigrateAndPackAllBoxes() {
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(2 + i % 3, 3 + i % 2, 2 + i % 4)));
+		}
+
+		IslandOptimizer<Supplier<SolverInterface>> optimizer = new IslandOptimizer<>(CPUOptimizer::new, 3, 2, 2,
+				false);
+		TestOptimizers.initialize(optimizer, 3, TestSolvers.bestFitEms(new Bin(0, 10, 10, 10)), boxes, new Bin(0, 10,
+				10, 10), 8, 2, true);
+
+		try {
+			assertEquals(3, optimizer.getIslands().size());
+			assertEquals(3 * optimizer.getIslands().get(0).boxOrders.size(), optimizer.boxOrders.size());
+
+			List<List<Box>> best = null;
+			for (int g = 0; g < 4; g++) {
+				best = optimizer.executeNextGeneration();
+			}
+
+			// migrants were exchanged once, at the start of the third generation
+			Set<Integer> ids = new HashSet<>();
+			for (List<Box> bin : best) {
+				for (Box box : bin) {
+					ids.add(box.id);
+				}
+			}
+			assertEquals(40, ids.size());
+		} finally {
+			optimizer.release();
+		}
+	}
+
+	@Test
+	void testMigrantsAreNotCreditedToOperators() {
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(2 + i % 3, 3 + i % 2, 2 + i % 4)));
+		}
+		CPUOptimizer island = new CPUOptimizer();
+		TestOptimizers.initialize(island, 5, TestSolvers.bestFitEms(new Bin(0, 10, 10, 10)), boxes, new Bin(0, 10, 10,
+				10), 8, 2, false);
+		try {
+			island.executeNextGeneration();
+			// Every bred child is replaced, as if by migrants
+			for (int i = 2; i < island.boxOrders.size(); i++) {
+				island.replaceMember(i, Optimizer.identityOrder(boxes.size()));
+			}
+			double[] before = island.getOperatorPortfolio().getState();
+			island.executeNextGeneration();
+			assertArrayEquals(before, island.getOperatorPortfolio().getState(), 0);
+		} finally {
+			island.release();
+		}
+	}
+}
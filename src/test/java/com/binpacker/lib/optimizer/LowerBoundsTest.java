@@ -0,0 +1,121 @@
+package com.binpacker.lib.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.solver.TestSolvers;
+import com.binpacker.lib.solver.cpusolvers.FirstFit3D;
+
+class LowerBoundsTest {
+
+	private List<Box> cubes(int count, float side) {
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(side, side, side)));
+		}
+		return boxes;
+	}
+
+	@Test
+	void testMartelloTothL2() {
+		assertEquals(3, LowerBounds.martelloTothL2(new double[] { 6, 6, 6 }, 10));
+		assertEquals(2, LowerBounds.martelloTothL2(new double[] { 6, 4, 6, 4 }, 10));
+		assertEquals(0, LowerBounds.martelloTothL2(new double[0], 10));
+	}
+
+	@Test
+	void testVolumeAndWeightBounds() {
+		Bin bin = new Bin(0, 8, 8, 8);
+		assertEquals(1, new LowerBounds(cubes(8, 4), bin, false, "x", List.of()).bins);
+		assertEquals(2, new LowerBounds(cubes(9, 4), bin, false, "x", List.of()).bins);
+
+		List<Box> heavy = cubes(5, 1);
+		heavy.forEach(box -> box.weight = 10);
+		LowerBounds bounds = new LowerBounds(heavy, new Bin(0, 8, 8, 8, 20), false, "x", List.of());
+		assertEquals(1, bounds.volumeBins);
+		assertEquals(3, bounds.weightBins);
+		assertEquals(3, bounds.bins);
+	}
+
+	@Test
+	void testLargeBoxesAreStacked() {
+		// Volume fits one bin, but no two boxes fit side by side
+		LowerBounds bounds = new LowerBounds(cubes(3, 5), new Bin(0, 8, 8, 8), false, "x", List.of(0, 1, 2));
+		assertEquals(1, bounds.volumeBins);
+		assertEquals(3, bounds.l1Bins);
+		assertEquals(3, bounds.bins);
+	}
+
+	@Test
+	void testOnlyBoxesThatFitCount() {
+		List<Box> boxes = List.of(new Box(0, new Point3f(0, 0, 0), new Point3f(9, 1, 1)));
+		Bin bin = new Bin(0, 8, 8, 10);
+		assertEquals(0, new LowerBounds(boxes, bin, false, "x", List.of()).bins);
+		assertEquals(1, new LowerBounds(boxes, bin, false, "x", List.of(2)).bins);
+	}
+
+	@Test
+	void testGrowingBinExtent() {
+		LowerBounds bounds = new LowerBounds(cubes(8, 2), new Bin(0, 4, 4, 4), true, "x", List.of());
+		assertEquals(4, bounds.extent, 1e-9);
+
+		List<List<Box>> packing = List.of(List.of(new Box(0, new Point3f(0, 0, 0), new Point3f(5, 2, 2))));
+		assertEquals(0.2, bounds.gap(packing), 1e-9);
+	}
+
+	@Test
+	void testBoundNeverExceedsPackedBins() {
+		SplittableRandom random = new SplittableRandom(5);
+		for (int instance = 0; instance < 20; instance++) {
+			List<Box> boxes = new ArrayList<>();
+			for (int i = 0; i < 40; i++) {
+				boxes.add(new Box(i, new Point3f(0, 0, 0),
+						new Point3f(1 + random.nextInt(7), 1 + random.nextInt(7), 1 + random.nextInt(7))));
+			}
+			List<Integer> rotations = instance % 2 == 0 ? List.of() : List.of(0, 1, 2);
+			List<List<Box>> packing = TestSolvers.init(new FirstFit3D(), new Bin(0, 8, 8, 8), rotations).solve(boxes);
+
+			LowerBounds bounds = new LowerBounds(boxes, new Bin(0, 8, 8, 8), false, "x", rotations);
+			assertTrue(bounds.bins <= packing.size(), bounds.bins + " > " + packing.size());
+			assertTrue(bounds.l2Bins >= bounds.volumeBins);
+		}
+	}
+
+	@Test
+	void testRunStopsOnceOptimal() throws Exception {
+		CPUOptimizer optimizer = new CPUOptimizer();
+		optimizer.setSeed(3);
+		optimizer.initialize(TestSolvers.firstFit(new Bin(0, 8, 8, 8), List.of()), cubes(8, 4), new Bin(0, 8, 8, 8),
+				false, "x", List.of(), 10, 2, false);
+		AtomicInteger generations = new AtomicInteger();
+		CountDownLatch finished = new CountDownLatch(1);
+		optimizer.addListener(new OptimizerListener() {
+			@Override
+			public void finished(OptimizerEvent.Finished event) {
+				generations.set(event.generation);
+				finished.countDown();
+			}
+		});
+		try {
+			List<List<Box>> best = optimizer.optimize(null, 100).get(10, TimeUnit.SECONDS);
+			assertTrue(finished.await(10, TimeUnit.SECONDS));
+			assertEquals(1, best.size());
+			assertTrue(optimizer.isOptimal());
+			assertEquals(0, optimizer.getGap(), 1e-12);
+			assertEquals(1, generations.get());
+		} finally {
+			optimizer.release();
+		}
+	}
+}
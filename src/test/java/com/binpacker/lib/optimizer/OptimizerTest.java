@@ -0,0 +1,351 @@
+package com.binpacker.lib.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.solver.TestSolvers;
+import com.binpacker.lib.solver.cpusolvers.SolverInterface;
+
+class OptimizerTest {
+
+	private CPUOptimizer optimizer(long seed, boolean threaded) {
+		return optimizer(seed, threaded, 0);
+	}
+
+	private CPUOptimizer optimizer(long seed, boolean threaded, int localSearchMoves) {
+		CPUOptimizer optimizer = new CPUOptimizer();
+		optimizer.setLocalSearch(localSearchMoves);
+		TestOptimizers.initialize(optimizer, seed, TestSolvers.firstFit(new Bin(0, 8, 8, 8)), TestBoxes.mixed(30),
+				new Bin(0, 8, 8, 8), 12, 4, threaded);
+		return optimizer;
+	}
+
+	@Test
+	void testCrossOverKeepsPermutation() {
+		CPUOptimizer optimizer = optimizer(1, false);
+		SplittableRandom random = new SplittableRandom(7);
+		int[] parent1 = Optimizer.identityOrder(30);
+		int[] parent2 = Optimizer.identityOrder(30);
+		for (int i = 0; i < 30; i++) {
+			parent2[i] = 29 - i;
+		}
+
+		for (int n = 0; n < 100; n++) {
+			int[] child = optimizer.crossOver(parent1, parent2, random);
+			boolean[] seen = new boolean[30];
+			for (int gene : child) {
+				assertFalse(seen[gene], "gene " + gene + " appears twice");
+				seen[gene] = true;
+			}
+			optimizer.mutate(child, random);
+		}
+		optimizer.release();
+	}
+
+	@Test
+	void testSameSeedGivesSamePopulation() {
+		CPUOptimizer serial = optimizer(42, false);
+		CPUOptimizer parallel = optimizer(42, true);
+		try {
+			for (int g = 0; g < 3; g++) {
+				serial.executeNextGeneration();
+				parallel.executeNextGeneration();
+			}
+			assertEquals(serial.boxOrders.size(), parallel.boxOrders.size());
+			for (int i = 0; i < serial.boxOrders.size(); i++) {
+				assertArrayEquals(serial.boxOrders.get(i), parallel.boxOrders.get(i));
+			}
+		} finally {
+			serial.release();
+			parallel.release();
+		}
+	}
+
+	@Test
+	void testLocalSearchImprovesElites() {
+		CPUOptimizer plain = optimizer(9, false);
+		CPUOptimizer serial = optimizer(9, false, 30);
+		CPUOptimizer parallel = optimizer(9, true, 30);
+		try {
+			// Both start from the same population, so local search can only do better
+			List<List<Box>> plainBest = plain.executeNextGeneration();
+			List<List<Box>> polishedBest = serial.executeNextGeneration();
+			parallel.executeNextGeneration();
+			assertTrue(serial.rate(polishedBest, serial.bin) >= plain.rate(plainBest, plain.bin));
+			assertTrue(serial.getLocalSearchImprovements() > 0);
+
+			serial.executeNextGeneration();
+			parallel.executeNextGeneration();
+			assertEquals(serial.getLocalSearchImprovements(), parallel.getLocalSearchImprovements());
+			for (int i = 0; i < serial.boxOrders.size(); i++) {
+				assertArrayEquals(serial.boxOrders.get(i), parallel.boxOrders.get(i));
+			}
+
+			// The elites stay distinct
+			for (int i = 0; i < 4; i++) {
+				for (int j = i + 1; j < 4; j++) {
+					assertNotEquals(serial.fitnessCache.key(serial.boxOrders.get(i)),
+							serial.fitnessCache.key(serial.boxOrders.get(j)));
+				}
+			}
+		} finally {
+			plain.release();
+			serial.release();
+			parallel.release();
+		}
+	}
+
+	@Test
+	void testOptimizeReturnsBestByDeadline() throws Exception {
+		CPUOptimizer optimizer = optimizer(3, true);
+		optimizer.setStopWhenOptimal(false);
+		CountDownLatch finished = new CountDownLatch(1);
+		optimizer.addListener(new OptimizerListener() {
+			@Override
+			public void finished(OptimizerEvent.Finished event) {
+				finished.countDown();
+			}
+		});
+		try {
+			long start = System.nanoTime();
+			List<List<Box>> best = optimizer.optimize(Instant.now().plusMillis(300)).get(5, TimeUnit.SECONDS);
+			long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+			assertTrue(elapsedMillis < 300 + 500, "took " + elapsedMillis + " ms");
+			// Once the run ends its deadline no longer stops generations stepped by hand
+			assertTrue(finished.await(5, TimeUnit.SECONDS));
+			assertFalse(optimizer.isStopRequested());
+
+			Set<Integer> ids = new HashSet<>();
+			best.forEach(bin -> bin.forEach(box -> ids.add(box.id)));
+			assertEquals(30, ids.size());
+		} finally {
+			optimizer.release();
+		}
+	}
+
+	@Test
+	void testCancellingFutureStopsRun() {
+		CPUOptimizer optimizer = optimizer(3, true);
+		try {
+			CompletableFuture<List<List<Box>>> future = optimizer.optimize(Instant.now().plusSeconds(60));
+			future.cancel(true);
+			assertTrue(optimizer.isStopRequested());
+		} finally {
+			optimizer.release();
+		}
+	}
+
+	@Test
+	void testListenersGetEventsAndBestIsPackedOnlyWhenItChanges() throws Exception {
+		int[] finalized = new int[1];
+		CPUOptimizer optimizer = new CPUOptimizer() {
+			@Override
+			protected List<List<Box>> finalizeBestSolution(Solution bestSolution) {
+				finalized[0]++;
+				return super.finalizeBestSolution(bestSolution);
+			}
+		};
+		TestOptimizers.initialize(optimizer, 5, TestSolvers.firstFit(new Bin(0, 8, 8, 8)), TestBoxes.mixed(30),
+				new Bin(0, 8, 8, 8), 12, 4, true);
+		optimizer.setStagnationLimit(1);
+		optimizer.setStopWhenOptimal(false);
+
+		int[] counts = new int[4];
+		CountDownLatch finished = new CountDownLatch(1);
+		optimizer.addListener(new OptimizerListener() {
+			@Override
+			public void generationFinished(OptimizerEvent.GenerationFinished event) {
+				counts[0]++;
+				assertEquals(counts[0], event.generation);
+			}
+
+			@Override
+			public void newBest(OptimizerEvent.NewBest event) {
+				counts[1]++;
+				assertEquals(event.bestScore, optimizer.rate(event.packing, optimizer.bin), 1e-9);
+			}
+
+			@Override
+			public void stagnated(OptimizerEvent.Stagnation event) {
+				counts[2]++;
+			}
+
+			@Override
+			public void finished(OptimizerEvent.Finished event) {
+				counts[3]++;
+				finished.countDown();
+			}
+		});
+
+		try {
+			optimizer.optimize(null, 8).get(30, TimeUnit.SECONDS);
+			assertTrue(finished.await(30, TimeUnit.SECONDS));
+			assertEquals(8, counts[0]);
+			assertTrue(counts[1] >= 1);
+			// With a limit of one, every generation either improves or stagnates
+			assertEquals(8, counts[1] + counts[2]);
+			assertEquals(1, counts[3]);
+			assertTrue(finalized[0] <= counts[1] + 1, finalized[0] + " packings for " + counts[1] + " new bests");
+		} finally {
+			optimizer.release();
+		}
+	}
+
+	@Test
+	void testScoreOnlyKeepsNoPackingsButFindsSameBest() {
+		CPUOptimizer full = optimizer(8, true);
+		CPUOptimizer scoreOnly = optimizer(8, true);
+		scoreOnly.setScoreOnly(true);
+		try {
+			for (Solution solution : scoreOnly.evaluatePopulation(scoreOnly.boxOrders)) {
+				assertNull(solution.solved);
+				assertTrue(solution.bins > 0);
+			}
+
+			List<List<Box>> fullBest = null;
+			List<List<Box>> scoreOnlyBest = null;
+			for (int g = 0; g < 3; g++) {
+				fullBest = full.executeNextGeneration();
+				scoreOnlyBest = scoreOnly.executeNextGeneration();
+			}
+			assertEquals(full.rate(fullBest, full.bin), scoreOnly.rate(scoreOnlyBest, scoreOnly.bin), 1e-9);
+			for (int i = 0; i < full.boxOrders.size(); i++) {
+				assertArrayEquals(full.boxOrders.get(i), scoreOnly.boxOrders.get(i));
+			}
+		} finally {
+			full.release();
+			scoreOnly.release();
+		}
+	}
+
+	@Test
+	void testOnlyElitesKeepCheckpoints() {
+		List<Solution> evaluated = new ArrayList<>();
+		CPUOptimizer optimizer = new CPUOptimizer() {
+			@Override
+			protected List<Solution> evaluatePopulation(List<int[]> population) {
+				List<Solution> solutions = super.evaluatePopulation(population);
+				evaluated.addAll(solutions);
+				return solutions;
+			}
+		};
+		TestOptimizers.initialize(optimizer, 6, TestSolvers.firstFit(new Bin(0, 8, 8, 8)), TestBoxes.mixed(30),
+				new Bin(0, 8, 8, 8), 12, 4, false);
+		try {
+			for (int g = 0; g < 3; g++) {
+				evaluated.clear();
+				optimizer.executeNextGeneration();
+				long kept = evaluated.stream().filter(solution -> solution.checkpoints != null).count();
+				assertTrue(kept <= optimizer.getEliteCount(), "kept " + kept);
+			}
+
+			// Orders that cannot beat the worst elite are not checkpointed at all
+			for (Solution solution : optimizer.evaluatePopulation(optimizer.boxOrders)) {
+				if (!optimizer.isBetter(solution.score, optimizer.cutoff)) {
+					assertNull(solution.checkpoints);
+				}
+			}
+		} finally {
+			optimizer.release();
+		}
+	}
+
+	private EvaluationTier<java.util.function.Supplier<SolverInterface>> firstFitTier() {
+		return new EvaluationTier<>(() -> {
+			CPUOptimizer evaluator = new CPUOptimizer();
+			evaluator.setPrefixFraction(0.5);
+			return evaluator;
+		}, TestSolvers.firstFit(new Bin(0, 8, 8, 8)), 0.25);
+	}
+
+	@Test
+	void testEvaluationTierScreensChildren() {
+		CPUOptimizer serial = optimizer(11, false);
+		CPUOptimizer parallel = optimizer(11, true);
+		EvaluationTier<java.util.function.Supplier<SolverInterface>> tier = firstFitTier();
+		serial.addEvaluationTier(tier);
+		parallel.addEvaluationTier(firstFitTier());
+		try {
+			for (int g = 0; g < 3; g++) {
+				serial.executeNextGeneration();
+				parallel.executeNextGeneration();
+			}
+			// Every child was picked from four scored by the tier
+			int children = serial.boxOrders.size() - 4;
+			assertEquals(3 * 4 * children, tier.getScreened());
+			assertEquals(3 * children, tier.getPromoted());
+			for (int i = 0; i < serial.boxOrders.size(); i++) {
+				assertArrayEquals(serial.boxOrders.get(i), parallel.boxOrders.get(i));
+				Set<Integer> genes = new HashSet<>();
+				for (int gene : serial.boxOrders.get(i)) {
+					genes.add(gene);
+				}
+				assertEquals(30, genes.size());
+			}
+		} finally {
+			serial.release();
+			parallel.release();
+		}
+	}
+
+	@Test
+	void testOptimizersThatPackEveryChildRejectTiers() {
+		List<Optimizer<java.util.function.Supplier<SolverInterface>>> unscreened = List.of(
+				new SteadyStateOptimizer(1), new ParallelTemperingOptimizer<>(CPUOptimizer::new, 4),
+				new BrkgaOptimizer<>(CPUOptimizer::new));
+		for (Optimizer<java.util.function.Supplier<SolverInterface>> optimizer : unscreened) {
+			assertFalse(optimizer.supportsEvaluationTiers());
+			assertThrows(UnsupportedOperationException.class, () -> optimizer.addEvaluationTier(firstFitTier()));
+			assertTrue(optimizer.getEvaluationTiers().isEmpty());
+		}
+
+		// Islands hand their tiers to GA islands, which screen with them
+		IslandOptimizer<java.util.function.Supplier<SolverInterface>> islands = new IslandOptimizer<>(
+				CPUOptimizer::new, 2);
+		islands.addEvaluationTier(firstFitTier());
+		assertEquals(1, islands.getEvaluationTiers().size());
+	}
+
+	@Test
+	void testHybridOrdersOnlyLargeBoxes() {
+		long large = TestBoxes.mixed(30).stream().filter(box -> box.getVolume() >= 20).count();
+		CPUOptimizer serial = new CPUOptimizer();
+		CPUOptimizer parallel = new CPUOptimizer();
+		for (CPUOptimizer optimizer : List.of(serial, parallel)) {
+			optimizer.setHybrid(20, 0);
+			optimizer.addEvaluationTier(firstFitTier());
+			TestOptimizers.initialize(optimizer, 5, TestSolvers.firstFit(new Bin(0, 8, 8, 8)), TestBoxes.mixed(30),
+					new Bin(0, 8, 8, 8), 12, 4, optimizer == parallel);
+		}
+		try {
+			for (int g = 0; g < 3; g++) {
+				List<List<Box>> packed = serial.executeNextGeneration();
+				parallel.executeNextGeneration();
+				// The small boxes are packed too
+				Set<Integer> ids = new HashSet<>();
+				packed.forEach(packedBin -> packedBin.forEach(box -> ids.add(box.id)));
+				assertEquals(30, ids.size());
+			}
+			for (int i = 0; i < serial.boxOrders.size(); i++) {
+				assertEquals(large, serial.boxOrders.get(i).length);
+				assertArrayEquals(serial.boxOrders.get(i), parallel.boxOrders.get(i));
+			}
+		} finally {
+			serial.release();
+			parallel.release();
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.binpacker.lib.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.solver.TestSolvers;
+import com.binpacker.lib.solver.cpusolvers.SolverInterface;
+
+class ParallelTemperingOptimizerTest {
+
+	private ParallelTemperingOptimizer<Supplier<SolverInterface>> optimizer(boolean threaded) {
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(1 + i % 4, 2 + i % 3, 1 + i % 5)));
+		}
+		ParallelTemperingOptimizer<Supplier<SolverInterface>> optimizer = new ParallelTemperingOptimizer<>(
+				CPUOptimizer::new, 4, 5);
+		TestOptimizers.initialize(optimizer, 17, TestSolvers.firstFit(new Bin(0, 8, 8, 8)), boxes, new Bin(0, 8, 8, 8),
+				10, 2, threaded);
+		return optimizer;
+	}
+
+	@Test
+	void testBestNeverGetsWorse() {
+		ParallelTemperingOptimizer<Supplier<SolverInterface>> optimizer = optimizer(true);
+		try {
+			double[] temperatures = optimizer.getTemperatures();
+			for (int i = 1; i < temperatures.length; i++) {
+				assertTrue(temperatures[i] > temperatures[i - 1]);
+			}
+
+			double previous = Double.NEGATIVE_INFINITY;
+			List<List<Box>> best = null;
+			for (int g = 0; g < 6; g++) {
+				best = optimizer.executeNextGeneration();
+				double score = optimizer.rate(best, optimizer.bin);
+				assertTrue(score >= previous);
+				previous = score;
+			}
+			assertEquals(4, optimizer.boxOrders.size());
+
+			Set<Integer> ids = new HashSet<>();
+			for (List<Box> bin : best) {
+				for (Box box : bin) {
+					ids.add(box.id);
+				}
+			}
+			assertEquals(40, ids.size());
+
+			for (double rate : optimizer.getAcceptanceRates()) {
+				assertTrue(rate >= 0 && rate <= 1);
+			}
+			assertTrue(optimizer.getExchangeRate() > 0);
+		} finally {
+			optimizer.release();
+		}
+	}
+
+	@Test
+	void testSameSeedGivesSameReplicas() {
+		ParallelTemperingOptimizer<Supplier<SolverInterface>> serial = optimizer(false);
+		ParallelTemperingOptimizer<Supplier<SolverInterface>> parallel = optimizer(true);
+		try {
+			for (int g = 0; g < 3; g++) {
+				serial.executeNextGeneration();
+				parallel.executeNextGeneration();
+			}
+			for (int i = 0; i < serial.boxOrders.size(); i++) {
+				assertArrayEquals(serial.boxOrders.get(i), parallel.boxOrders.get(i));
+			}
+		} finally {
+			serial.release();
+			parallel.release();
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.binpacker.lib.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.solver.TestSolvers;
+import com.binpacker.lib.solver.common.SolverProperties;
+import com.binpacker.lib.solver.cpusolvers.SolverInterface;
+
+class PortfolioRunnerTest {
+
+	private static final Bin BIN = new Bin(0, 8, 8, 8);
+
+	/**
+	 * Packs every box into a bin of its own, a configuration that always loses.
+	 */
+	private static final class OneBoxPerBin implements SolverInterface {
+		@Override
+		public void init(SolverProperties properties) {
+		}
+
+		@Override
+		public List<List<Box>> solve(List<Box> boxes) {
+			List<List<Box>> bins = new ArrayList<>();
+			for (Box box : boxes) {
+				bins.add(List.of(new Box(box.id, new Point3f(0, 0, 0), box.size)));
+			}
+			return bins;
+		}
+
+		@Override
+		public void reset() {
+		}
+
+		@Override
+		public void release() {
+		}
+	}
+
+	private CPUOptimizer optimizer(Supplier<SolverInterface> solvers) {
+		CPUOptimizer optimizer = new CPUOptimizer();
+		optimizer.setStopWhenOptimal(false);
+		TestOptimizers.initialize(optimizer, 3, solvers, TestBoxes.mixed(40), BIN, 10, 3, true);
+		return optimizer;
+	}
+
+	@Test
+	void testLosersAreCancelledAndBestIsReturned() throws Exception {
+		CPUOptimizer firstFit = optimizer(TestSolvers.firstFit(BIN));
+		CPUOptimizer oneBoxPerBin = optimizer(OneBoxPerBin::new);
+		PortfolioRunner runner = new PortfolioRunner();
+		runner.add("first fit", firstFit);
+		runner.add("one box per bin", oneBoxPerBin);
+		runner.setElimination(0.1, 0.02);
+		try {
+			long start = System.nanoTime();
+			List<List<Box>> best = runner.run(Instant.now().plusMillis(1500), Integer.MAX_VALUE)
+					.get(10, TimeUnit.SECONDS);
+			assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+			assertEquals("first fit", runner.getLeader());
+			assertEquals(List.of("one box per bin"), runner.getEliminated());
+			assertTrue(runner.getBestScore("first fit") > runner.getBestScore("one box per bin"));
+			Set<Integer> ids = new HashSet<>();
+			best.forEach(bin -> bin.forEach(box -> ids.add(box.id)));
+			assertEquals(40, ids.size());
+			assertTrue(best.size() < 40);
+		} finally {
+			firstFit.release();
+			oneBoxPerBin.release();
+		}
+	}
+
+	@Test
+	void testWithoutDeadlineAllRunToTheEnd() throws Exception {
+		CPUOptimizer a = optimizer(OneBoxPerBin::new);
+		CPUOptimizer b = optimizer(TestSolvers.firstFit(BIN));
+		PortfolioRunner runner = new PortfolioRunner();
+		runner.add("a", a);
+		runner.add("b", b);
+		try {
+			List<List<Box>> best = runner.run(null, 3).get(10, TimeUnit.SECONDS);
+			assertNotNull(best);
+			assertEquals("b", runner.getLeader());
+			assertTrue(runner.getEliminated().isEmpty());
+		} finally {
+			a.release();
+			b.release();
+		}
+	}
+}
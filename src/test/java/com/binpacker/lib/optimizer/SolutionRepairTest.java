@@ -0,0 +1,85 @@
+package com.binpacker.lib.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.common.Utils;
+import com.binpacker.lib.solver.TestSolvers;
+import com.binpacker.lib.solver.common.SolverProperties;
+
+class SolutionRepairTest {
+
+	private List<List<Box>> fullBins() {
+		// Two bins, each filled by two 10x10x5 slabs
+		List<List<Box>> bins = new ArrayList<>();
+		for (int b = 0; b < 2; b++) {
+			List<Box> bin = new ArrayList<>();
+			bin.add(new Box(b * 2, new Point3f(0, 0, 0), new Point3f(10, 10, 5)));
+			bin.add(new Box(b * 2 + 1, new Point3f(0, 0, 5), new Point3f(10, 10, 5)));
+			bins.add(bin);
+		}
+		return bins;
+	}
+
+	@Test
+	void testCsvRoundTrip() {
+		List<List<Box>> bins = Utils.importCsv(Utils.exportCsv(fullBins()));
+
+		assertEquals(2, bins.size());
+		assertEquals(2, bins.get(1).size());
+		assertEquals(3, bins.get(1).get(1).id);
+		assertEquals(5.0f, bins.get(1).get(1).position.z, 0.001f);
+	}
+
+	@Test
+	void testRemovedSpaceIsReused() {
+		SolverProperties properties = new SolverProperties(new Bin(0, 10, 10, 10), false, "x", List.of(0, 1, 2));
+		SolutionRepair repair = new SolutionRepair(fullBins(), properties);
+
+		repair.remove(List.of(3));
+		repair.add(List.of(new Box(10, new Point3f(0, 0, 0), new Point3f(5, 10, 10))));
+
+		List<List<Box>> solution = repair.getSolution();
+		assertEquals(2, solution.size(), "the new box should fit where box 3 was");
+		assertEquals(List.of(1), new ArrayList<>(repair.getTouchedBins()));
+
+		// the new box was rotated into the freed slab in the second bin
+		Box added = solution.get(1).get(1);
+		assertEquals(10, added.id);
+		assertEquals(5.0f, added.position.z, 0.001f);
+		assertEquals(5.0f, added.size.z, 0.001f);
+	}
+
+	@Test
+	void testOverflowOpensNewBin() {
+		SolverProperties properties = new SolverProperties(new Bin(0, 10, 10, 10), false, "x", List.of());
+		SolutionRepair repair = new SolutionRepair(fullBins(), properties);
+
+		repair.add(List.of(new Box(10, new Point3f(0, 0, 0), new Point3f(2, 2, 2))));
+
+		assertEquals(3, repair.getSolution().size());
+		assertEquals(List.of(2), new ArrayList<>(repair.getTouchedBins()));
+	}
+
+	@Test
+	void testOptimizeTouchedKeepsBinCount() {
+		SolverProperties properties = new SolverProperties(new Bin(0, 10, 10, 10), false, "x", List.of(0, 1, 2));
+		SolutionRepair repair = new SolutionRepair(fullBins(), properties);
+		repair.remove(List.of(1, 3));
+		repair.add(List.of(new Box(10, new Point3f(0, 0, 0), new Point3f(10, 10, 5))));
+
+		repair.optimizeTouched(TestSolvers.firstFit(new Bin(0, 10, 10, 10)), 2, 4, 2);
+
+		List<List<Box>> solution = repair.getSolution();
+		int boxCount = solution.stream().mapToInt(List::size).sum();
+		assertEquals(3, boxCount);
+		assertTrue(solution.size() <= 2);
+	}
+}
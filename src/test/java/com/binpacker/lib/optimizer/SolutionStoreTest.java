@@ -0,0 +1,206 @@
+package com.binpacker.lib.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.solver.TestSolvers;
+import com.binpacker.lib.solver.cpusolvers.SolverInterface;
+
+class SolutionStoreTest {
+
+	private static final Bin BIN = new Bin(0, 8, 8, 8);
+
+	private static void assertSameSize(Box expected, Box actual) {
+		assertEquals(expected.size.x, actual.size.x);
+		assertEquals(expected.size.y, actual.size.y);
+		assertEquals(expected.size.z, actual.size.z);
+	}
+
+	private void delete(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	private static boolean isPermutation(int[] order, int size) {
+		int[] sorted = order.clone();
+		Arrays.sort(sorted);
+		for (int i = 0; i < size; i++) {
+			if (sorted[i] != i) {
+				return false;
+			}
+		}
+		return order.length == size;
+	}
+
+	@Test
+	void testSameInstanceInAnotherOrder() throws IOException {
+		Path directory = Files.createTempDirectory("solutions");
+		try {
+			SolutionStore store = new SolutionStore(directory);
+			List<Box> boxes = TestBoxes.mixed(12);
+			int[] order = { 11, 3, 7, 0, 5, 9, 1, 2, 4, 6, 8, 10 };
+			store.save(boxes, BIN, false, "x", List.of(0, 1, 2), List.<int[]>of(order), new double[] { 0.5 });
+
+			// Same boxes, listed the other way round, rotations in another order
+			List<Box> reversed = new ArrayList<>(boxes);
+			Collections.reverse(reversed);
+			List<int[]> found = store.lookup(reversed, BIN, false, "x", List.of(2, 1, 0), 4);
+			assertEquals(1, found.size());
+			int[] mapped = found.get(0);
+			assertTrue(isPermutation(mapped, 12));
+			for (int k = 0; k < order.length; k++) {
+				assertSameSize(boxes.get(order[k]), reversed.get(mapped[k]));
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	void testKeepsBestAndMatchesOnlyTheSameBin() throws IOException {
+		Path directory = Files.createTempDirectory("solutions");
+		try {
+			SolutionStore store = new SolutionStore(directory);
+			List<Box> boxes = TestBoxes.mixed(12);
+			List<int[]> orders = new ArrayList<>();
+			double[] scores = new double[SolutionStore.MAX_SOLUTIONS + 2];
+			for (int i = 0; i < scores.length; i++) {
+				int[] order = Optimizer.identityOrder(12);
+				order[0] = i + 1;
+				order[i + 1] = 0;
+				orders.add(order);
+				scores[i] = i;
+			}
+			store.save(boxes, BIN, false, "x", List.of(), orders, scores);
+			List<int[]> found = store.lookup(boxes, BIN, false, "x", List.of(), 100);
+			assertTrue(found.size() <= SolutionStore.MAX_SOLUTIONS);
+			// Fill ratios are better when higher, so the last order is the best
+			assertEquals(orders.get(scores.length - 1)[0], found.get(0)[0]);
+
+			assertTrue(store.lookup(boxes, new Bin(0, 9, 8, 8), false, "x", List.of(), 4).isEmpty());
+			assertTrue(store.lookup(boxes, BIN, false, "x", List.of(0), 4).isEmpty());
+			assertTrue(store.lookup(boxes, BIN, true, "x", List.of(), 4).isEmpty());
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	void testSimilarInstanceIsMappedOntoItsBoxes() throws IOException {
+		Path directory = Files.createTempDirectory("solutions");
+		try {
+			SolutionStore store = new SolutionStore(directory);
+			List<Box> stored = TestBoxes.mixed(12);
+			int[] order = Optimizer.identityOrder(12);
+			store.save(stored, BIN, false, "x", List.of(), List.<int[]>of(order), new double[] { 0.5 });
+
+			// Two boxes fewer and a new type
+			List<Box> similar = new ArrayList<>(TestBoxes.mixed(10));
+			similar.add(new Box(10, new Point3f(0, 0, 0), new Point3f(7, 7, 7)));
+			List<int[]> found = store.lookup(similar, BIN, false, "x", List.of(), 4);
+			assertEquals(1, found.size());
+			assertTrue(isPermutation(found.get(0), 11));
+			// The new box has no place in the stored order and comes last
+			assertEquals(10, found.get(0)[10]);
+
+			store.setMinSimilarity(1);
+			assertTrue(store.lookup(similar, BIN, false, "x", List.of(), 4).isEmpty());
+			assertTrue(new SolutionStore(directory.resolve("missing")).lookup(similar, BIN, false, "x", List.of(), 4)
+					.isEmpty());
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	void testRunsWarmStartFromEachOther() throws Exception {
+		Path directory = Files.createTempDirectory("solutions");
+		try {
+			SolutionStore store = new SolutionStore(directory);
+			List<Box> boxes = TestBoxes.mixed(30);
+			CPUOptimizer first = new CPUOptimizer();
+			first.setSeed(1);
+			first.setStopWhenOptimal(false);
+			first.setSolutionStore(store);
+			first.initialize(TestSolvers.firstFit(BIN, List.of()), boxes, BIN, false, "x", List.of(), 10, 2, false);
+			try {
+				first.optimize(null, 3).get(10, TimeUnit.SECONDS);
+			} finally {
+				first.release();
+			}
+			int[] best = first.boxOrders.get(0);
+
+			CPUOptimizer second = new CPUOptimizer();
+			second.setSeed(2);
+			second.setSolutionStore(store);
+			try {
+				second.initialize(first.solverSource, boxes, BIN, false, "x", List.of(), 10, 2, false);
+				// After the three sorted orders, boxes of a type may trade places
+				int[] warm = second.boxOrders.get(3);
+				assertTrue(isPermutation(warm, 30));
+				for (int k = 0; k < best.length; k++) {
+					assertSameSize(boxes.get(best[k]), boxes.get(warm[k]));
+				}
+				assertEquals(11, second.boxOrders.size());
+			} finally {
+				second.release();
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	void testIslandsStoreTheirScoredOrders() throws IOException {
+		Path directory = Files.createTempDirectory("solutions");
+		IslandOptimizer<Supplier<SolverInterface>> optimizer = new IslandOptimizer<>(CPUOptimizer::new, 3, 2, 2,
+				false);
+		try {
+			optimizer.setSeed(4);
+			optimizer.setSolutionStore(new SolutionStore(directory));
+			List<Box> boxes = TestBoxes.mixed(30);
+			optimizer.initialize(TestSolvers.firstFit(BIN, List.of()), boxes, BIN, false, "x", List.of(), 8, 2, false);
+			for (int g = 0; g < 2; g++) {
+				optimizer.executeNextGeneration();
+			}
+			// The elites of every island were scored by that island
+			long scored = optimizer.scoredOrders().stream().filter(solution -> !Double.isNaN(solution.score)).count();
+			assertTrue(scored >= 3 * 2, "scored " + scored);
+
+			Solution best = optimizer.scoredOrders().stream()
+					.filter(solution -> !Double.isNaN(solution.score))
+					.max(Comparator.comparingDouble(solution -> solution.score))
+					.get();
+
+			optimizer.storeSolutions();
+			List<int[]> found = new SolutionStore(directory).lookup(boxes, BIN, false, "x", List.of(), 100);
+			assertFalse(found.isEmpty());
+			// Boxes of a type may trade places
+			for (int k = 0; k < 30; k++) {
+				assertSameSize(boxes.get(best.order[k]), boxes.get(found.get(0)[k]));
+			}
+		} finally {
+			optimizer.release();
+			delete(directory);
+		}
+	}
+}
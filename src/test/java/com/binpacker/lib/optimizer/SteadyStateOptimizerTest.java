@@ -0,0 +1,100 @@
+package com.binpacker.lib.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.solver.TestSolvers;
+
+class SteadyStateOptimizerTest {
+
+	private SteadyStateOptimizer optimizer(boolean threaded) {
+		SteadyStateOptimizer optimizer = new SteadyStateOptimizer(3);
+		TestOptimizers.initialize(optimizer, 11, TestSolvers.bestFitEms(new Bin(0, 10, 10, 10)), TestBoxes.mixed(40),
+				new Bin(0, 10, 10, 10), 10, 2, threaded);
+		return optimizer;
+	}
+
+	@Test
+	void testScoreNeverGetsWorse() {
+		SteadyStateOptimizer optimizer = optimizer(true);
+		try {
+			double previous = Double.NEGATIVE_INFINITY;
+			for (int g = 0; g < 5; g++) {
+				List<List<Box>> best = optimizer.executeNextGeneration();
+				double score = optimizer.rate(best, new Bin(0, 10, 10, 10));
+				assertTrue(score >= previous);
+				previous = score;
+
+				Set<Integer> ids = new HashSet<>();
+				best.forEach(bin -> bin.forEach(box -> ids.add(box.id)));
+				assertEquals(40, ids.size());
+			}
+			assertTrue(optimizer.getEvaluations() >= 4 * 10);
+		} finally {
+			optimizer.release();
+		}
+	}
+
+	@Test
+	void testSameSeedGivesSameResultWhenNotThreaded() {
+		SteadyStateOptimizer first = optimizer(false);
+		SteadyStateOptimizer second = optimizer(false);
+		try {
+			for (int g = 0; g < 4; g++) {
+				first.executeNextGeneration();
+				second.executeNextGeneration();
+			}
+			assertEquals(first.boxOrders.size(), second.boxOrders.size());
+			for (int i = 0; i < first.boxOrders.size(); i++) {
+				assertArrayEquals(first.boxOrders.get(i), second.boxOrders.get(i));
+			}
+		} finally {
+			first.release();
+			second.release();
+		}
+	}
+
+	@Test
+	void testWorkersBreedAheadBoundedAndStopWithTheRun() throws Exception {
+		SteadyStateOptimizer optimizer = optimizer(true);
+		try {
+			optimizer.executeNextGeneration();
+			for (int g = 1; g <= 3; g++) {
+				optimizer.executeNextGeneration();
+				long returned = optimizer.getEvaluations();
+				assertTrue(returned >= g * optimizer.populationSize);
+				Thread.sleep(100);
+				// Breeding went on after the call, up to a generation past the next
+				// call's target, and then waits for it
+				long ahead = optimizer.getEvaluations();
+				assertTrue(ahead >= (g + 2) * optimizer.populationSize, "evaluated " + ahead);
+				assertTrue(ahead <= returned + 2 * optimizer.populationSize, "evaluated " + ahead);
+				Thread.sleep(50);
+				assertEquals(ahead, optimizer.getEvaluations());
+			}
+
+			optimizer.setStopWhenOptimal(false);
+			optimizer.optimize(Instant.now().plusMillis(200)).get(10, TimeUnit.SECONDS);
+			Thread.sleep(200);
+			long evaluations = optimizer.getEvaluations();
+			Thread.sleep(100);
+			assertEquals(evaluations, optimizer.getEvaluations());
+
+			// Stepping after the run sets the workers breeding again
+			optimizer.executeNextGeneration();
+			Thread.sleep(100);
+			assertTrue(optimizer.getEvaluations() >= evaluations + optimizer.populationSize);
+		} finally {
+			optimizer.release();
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.binpacker.lib.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.solver.TestSolvers;
+
+class SurrogateModelTest {
+
+	@Test
+	void testSpearman() {
+		double[] a = { 1, 2, 3, 4 };
+		assertEquals(1.0, SurrogateModel.spearman(a, new double[] { 10, 20, 30, 40 }), 1e-9);
+		assertEquals(-1.0, SurrogateModel.spearman(a, new double[] { 4, 3, 2, -1 }), 1e-9);
+		assertTrue(Double.isNaN(SurrogateModel.spearman(a, new double[] { 5, 5, 5, 5 })));
+	}
+
+	@Test
+	void testLearnsLinearRelation() {
+		SurrogateModel model = new SurrogateModel(TestBoxes.mixed(40), new Bin(0, 8, 8, 8), 10);
+		assertFalse(model.isReady());
+		SplittableRandom random = new SplittableRandom(1);
+		for (int n = 0; n < 200; n++) {
+			double[] f = new double[SurrogateModel.FEATURES];
+			f[0] = 1;
+			for (int i = 1; i < f.length; i++) {
+				f[i] = random.nextDouble();
+			}
+			model.train(f, 0.3 + 2 * f[1] - 0.5 * f[3]);
+		}
+		assertTrue(model.isReady());
+		double[] probe = { 1, 0.5, 0.2, 0.4, 0.9, 0.1 };
+		assertEquals(0.3 + 1 - 0.2, model.predict(probe), 1e-3);
+	}
+
+	private CPUOptimizer optimizer(boolean threaded) {
+		CPUOptimizer optimizer = new CPUOptimizer();
+		optimizer.setSurrogateScreening(3);
+		TestOptimizers.initialize(optimizer, 13, TestSolvers.firstFit(new Bin(0, 8, 8, 8)), TestBoxes.mixed(40),
+				new Bin(0, 8, 8, 8), 12, 3, threaded);
+		return optimizer;
+	}
+
+	@Test
+	void testScreeningIsReproducibleAndReportsRanking() {
+		CPUOptimizer serial = optimizer(false);
+		CPUOptimizer parallel = optimizer(true);
+		try {
+			for (int g = 0; g < 6; g++) {
+				serial.executeNextGeneration();
+				parallel.executeNextGeneration();
+			}
+			assertTrue(serial.getSurrogate().isReady());
+			double correlation = serial.getSurrogate().getMeanRankCorrelation();
+			assertFalse(Double.isNaN(correlation));
+			assertTrue(correlation >= -1 && correlation <= 1);
+			for (int i = 0; i < serial.boxOrders.size(); i++) {
+				assertArrayEquals(serial.boxOrders.get(i), parallel.boxOrders.get(i));
+			}
+		} finally {
+			serial.release();
+			parallel.release();
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+
+/**
+ * Boxes shared by the optimizer tests.
+ */
+final class TestBoxes {
+
+	private TestBoxes() {
+	}
+
+	/**
+	 * Boxes of up to 60 sizes, from 1x1x2 to 5x3x5, with ids 0 to count - 1.
+	 */
+	static List<Box> mixed(int count) {
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(1 + i % 5, 1 + i % 3, 2 + i % 4)));
+		}
+		return boxes;
+	}
+}
@@ -0,0 +1,30 @@
+package com.binpacker.lib.optimizer;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.solver.cpusolvers.SolverInterface;
+
+/**
+ * Standard setup of the optimizers under test.
+ */
+final class TestOptimizers {
+
+	private TestOptimizers() {
+	}
+
+	/**
+	 * Initializes the optimizer, configured apart from its seed, for fixed bins
+	 * like the given one and boxes that may turn about every axis.
+	 */
+	static <O extends Optimizer<Supplier<SolverInterface>>> O initialize(O optimizer, long seed,
+			Supplier<SolverInterface> solvers, List<Box> boxes, Bin bin, int populationSize, int eliteCount,
+			boolean threaded) {
+		optimizer.setSeed(seed);
+		optimizer.initialize(solvers, boxes, bin, false, "x", List.of(0, 1, 2), populationSize, eliteCount,
+				threaded);
+		return optimizer;
+	}
+}
@@ -0,0 +1,99 @@
+package com.binpacker.lib.optimizer.operators;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class OperatorPortfolioTest {
+
+	private static final int SIZE = 24;
+
+	private int[] boxTypes() {
+		int[] types = new int[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			types[i] = i / 4; // runs of four identical boxes
+		}
+		return types;
+	}
+
+	private int runs(int[] order, int[] types) {
+		int runs = 1;
+		for (int i = 1; i < order.length; i++) {
+			if (types[order[i]] != types[order[i - 1]]) {
+				runs++;
+			}
+		}
+		return runs;
+	}
+
+	@Test
+	void testOperatorsKeepPermutation() {
+		int[] types = boxTypes();
+		OperatorPortfolio portfolio = OperatorPortfolio.standard(types);
+		SplittableRandom random = new SplittableRandom(5);
+		int[] parent1 = new int[SIZE];
+		int[] parent2 = new int[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			parent1[i] = i;
+			parent2[i] = (i * 7) % SIZE;
+		}
+
+		for (int op = 0; op < portfolio.size(); op++) {
+			PermutationOperator operator = portfolio.get(op);
+			for (int n = 0; n < 200; n++) {
+				int[] before = parent1.clone();
+				int[] child = operator.apply(parent1, parent2, random);
+				assertArrayEquals(before, parent1, operator.getName() + " changed its parent");
+				boolean[] seen = new boolean[SIZE];
+				for (int gene : child) {
+					assertFalse(seen[gene], operator.getName() + ": gene " + gene + " appears twice");
+					seen[gene] = true;
+				}
+			}
+		}
+	}
+
+	@Test
+	void testBlockMoveNeverSplitsRuns() {
+		int[] types = boxTypes();
+		BlockMove move = new BlockMove(types);
+		SplittableRandom random = new SplittableRandom(11);
+		int[] order = new int[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			order[i] = i;
+		}
+		for (int n = 0; n < 200; n++) {
+			int[] child = move.apply(order, order, random);
+			assertTrue(runs(child, types) <= runs(order, types));
+			order = child;
+		}
+	}
+
+	@Test
+	void testPortfolioFavoursProductiveOperator() {
+		OperatorPortfolio portfolio = OperatorPortfolio.standard(boxTypes());
+		for (int n = 0; n < 300; n++) {
+			int op = n % portfolio.size();
+			// Only inversion improves, and every operator costs the same
+			portfolio.record(op, portfolio.get(op) instanceof InversionMove ? 0.01 : -0.01, SIZE, 1000);
+		}
+
+		List<OperatorStats> stats = portfolio.getStats();
+		assertEquals(portfolio.size(), stats.size());
+		double total = 0;
+		OperatorStats best = stats.get(0);
+		for (OperatorStats s : stats) {
+			total += s.selectionProbability;
+			assertTrue(s.selectionProbability > 0);
+			if (s.selectionProbability > best.selectionProbability) {
+				best = s;
+			}
+		}
+		assertEquals(1.0, total, 1e-9);
+		assertEquals("Inversion", best.name);
+		assertTrue(best.gainPerBox() > 0);
+	}
+}
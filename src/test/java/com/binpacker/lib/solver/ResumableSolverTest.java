@@ -0,0 +1,128 @@
+package com.binpacker.lib.solver;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.solver.common.SolveOptions;
+import com.binpacker.lib.solver.common.SolverProperties;
+import com.binpacker.lib.solver.cpusolvers.BestFit3D;
+import com.binpacker.lib.solver.cpusolvers.BestFitEMS;
+import com.binpacker.lib.solver.cpusolvers.FirstFit2D;
+import com.binpacker.lib.solver.cpusolvers.FirstFit3D;
+import com.binpacker.lib.solver.cpusolvers.ResumableSolver;
+
+class ResumableSolverTest {
+
+	private void assertResumeMatchesFullSolve(ResumableSolver solver) {
+		solver.init(new SolverProperties(new Bin(0, 8, 8, 8), false, "x", List.of(0, 1, 2), null, 30));
+		List<Box> parent = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			parent.add(new Box(i, new Point3f(0, 0, 0), new Point3f(1 + i % 4, 2 + i % 3, 1 + i % 5), 1));
+		}
+
+		SolveOptions parentOptions = new SolveOptions();
+		parentOptions.checkpointInterval = 5;
+		solver.solve(parent, parentOptions);
+		assertEquals(7, parentOptions.checkpoints.size());
+
+		// a child sharing the first 32 boxes with the parent
+		List<Box> child = new ArrayList<>(parent);
+		Collections.swap(child, 33, 38);
+
+		List<List<Box>> expected = solver.solve(child);
+
+		SolveOptions childOptions = new SolveOptions();
+		childOptions.resumeFrom = parentOptions.checkpoints.get(5); // after 30 boxes
+		List<List<Box>> resumed = solver.solve(child, childOptions);
+
+		assertEquals(expected.size(), resumed.size());
+		for (int b = 0; b < expected.size(); b++) {
+			assertEquals(expected.get(b).size(), resumed.get(b).size());
+			for (int i = 0; i < expected.get(b).size(); i++) {
+				Box e = expected.get(b).get(i);
+				Box r = resumed.get(b).get(i);
+				assertEquals(e.id, r.id);
+				assertEquals(e.position.x, r.position.x, 0.001);
+				assertEquals(e.position.y, r.position.y, 0.001);
+				assertEquals(e.position.z, r.position.z, 0.001);
+			}
+		}
+	}
+
+	@Test
+	void testCutoffAbortsOnlyWhenBoundIsMissed() {
+		List<Box> cubes = new ArrayList<>();
+		for (int i = 0; i < 60; i++) {
+			cubes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(5, 5, 5)));
+		}
+		FirstFit3D solver = TestSolvers.init(new FirstFit3D(), new Bin(0, 10, 10, 10), List.of(0, 1, 2));
+
+		// 8 bins, the first 7 full, so the utilization is 1.0
+		SolveOptions reachable = new SolveOptions();
+		reachable.cutoff = 0.9;
+		List<List<Box>> full = solver.solve(cubes, reachable);
+		assertFalse(reachable.aborted);
+		assertEquals(8, full.size());
+
+		// with 8 bins open, 7500 / 7000 < 1.1
+		SolveOptions unreachable = new SolveOptions();
+		unreachable.cutoff = 1.1;
+		solver.solve(cubes, unreachable);
+		assertTrue(unreachable.aborted);
+
+		FirstFit3D growing = new FirstFit3D();
+		growing.init(new SolverProperties(new Bin(0, 10, 10, 10), true, "z", List.of(0, 1, 2)));
+		SolveOptions extent = new SolveOptions();
+		extent.cutoff = 20;
+		List<List<Box>> partial = growing.solve(cubes, extent);
+		assertTrue(extent.aborted);
+		assertTrue(partial.get(0).size() < 60);
+	}
+
+	@Test
+	void testCancellationStopsSolve() {
+		FirstFit3D solver = TestSolvers.init(new FirstFit3D(), new Bin(0, 8, 8, 8), List.of(0, 1, 2));
+		List<Box> boxes = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			boxes.add(new Box(i, new Point3f(0, 0, 0), new Point3f(1 + i % 4, 2 + i % 3, 1 + i % 5)));
+		}
+		int[] polls = new int[1];
+		SolveOptions options = new SolveOptions();
+		options.cancellation = () -> ++polls[0] > 10;
+		List<List<Box>> partial = solver.solve(boxes, options);
+
+		assertTrue(options.aborted);
+		int placed = 0;
+		for (List<Box> bin : partial) {
+			placed += bin.size();
+		}
+		assertEquals(10, placed);
+	}
+
+	@Test
+	void testResumeFirstFit3D() {
+		assertResumeMatchesFullSolve(new FirstFit3D());
+	}
+
+	@Test
+	void testResumeFirstFit2D() {
+		assertResumeMatchesFullSolve(new FirstFit2D());
+	}
+
+	@Test
+	void testResumeBestFit3D() {
+		assertResumeMatchesFullSolve(new BestFit3D());
+	}
+
+	@Test
+	void testResumeBestFitEMS() {
+		assertResumeMatchesFullSolve(new BestFitEMS());
+	}
+}
@@ -0,0 +1,45 @@
+package com.binpacker.lib.solver;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.solver.common.SolverProperties;
+import com.binpacker.lib.solver.cpusolvers.BestFitEMS;
+import com.binpacker.lib.solver.cpusolvers.FirstFit3D;
+import com.binpacker.lib.solver.cpusolvers.SolverInterface;
+
+/**
+ * Solvers set up for fixed bins, shared by the solver and optimizer tests.
+ */
+public final class TestSolvers {
+
+	private TestSolvers() {
+	}
+
+	/**
+	 * The solver, initialized for fixed bins like the given one.
+	 */
+	public static <T extends SolverInterface> T init(T solver, Bin bin, List<Integer> rotationAxes) {
+		solver.init(new SolverProperties(bin, false, "x", rotationAxes));
+		return solver;
+	}
+
+	/**
+	 * New {@link FirstFit3D} solvers that may turn boxes about every axis.
+	 */
+	public static Supplier<SolverInterface> firstFit(Bin bin) {
+		return firstFit(bin, List.of(0, 1, 2));
+	}
+
+	public static Supplier<SolverInterface> firstFit(Bin bin, List<Integer> rotationAxes) {
+		return () -> init(new FirstFit3D(), bin, rotationAxes);
+	}
+
+	/**
+	 * New {@link BestFitEMS} solvers that may turn boxes about every axis.
+	 */
+	public static Supplier<SolverInterface> bestFitEms(Bin bin) {
+		return () -> init(new BestFitEMS(), bin, List.of(0, 1, 2));
+	}
+}
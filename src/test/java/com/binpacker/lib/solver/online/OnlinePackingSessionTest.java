@@ -0,0 +1,143 @@
+package com.binpacker.lib.solver.online;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.binpacker.lib.common.Bin;
+import com.binpacker.lib.common.Box;
+import com.binpacker.lib.common.Point3f;
+import com.binpacker.lib.solver.common.SolverProperties;
+
+class OnlinePackingSessionTest {
+
+	@Test
+	void testPlaceOpensNewBinWhenFull() {
+		Bin binTemplate = new Bin(0, 10, 10, 10);
+		OnlinePackingSession session = new OnlinePackingSession(
+				new SolverProperties(binTemplate, false, "x", List.of()), 2, 4);
+
+		PackedBox first = session.place(new Box(0, new Point3f(0, 0, 0), new Point3f(10, 10, 6)));
+		PackedBox second = session.place(new Box(1, new Point3f(0, 0, 0), new Point3f(10, 10, 6)));
+		PackedBox third = session.place(new Box(2, new Point3f(0, 0, 0), new Point3f(10, 10, 4)));
+
+		assertEquals(0, first.binIndex);
+		assertEquals(1, second.binIndex);
+		// the small box goes back into the gap left in the first bin
+		assertEquals(0, third.binIndex);
+		assertEquals(6.0f, third.box.position.z, 0.001f);
+
+		// the template is not resized by the session
+		assertEquals(10.0f, binTemplate.w, 0.001f);
+		session.close();
+	}
+
+	@Test
+	void testBoxThatFitsNoBinIsRejectedWithoutOpeningOne() throws InterruptedException {
+		OnlinePackingSession session = new OnlinePackingSession(
+				new SolverProperties(new Bin(0, 10, 10, 10), false, "x", List.of(0, 1, 2), null, 20), 2, 4);
+
+		PackedBox tooBig = session.place(new Box(0, new Point3f(0, 0, 0), new Point3f(11, 2, 2)));
+		PackedBox tooHeavy = session.place(new Box(1, new Point3f(0, 0, 0), new Point3f(2, 2, 2), 25));
+		assertTrue(tooBig.isRejected());
+		assertEquals(0, tooBig.box.id);
+		assertTrue(tooHeavy.isRejected());
+		assertTrue(session.getBins().isEmpty());
+
+		// A box too long one way fits once turned
+		PackedBox turned = session.place(new Box(2, new Point3f(0, 0, 0), new Point3f(2, 2, 10)));
+		assertFalse(turned.isRejected());
+		assertEquals(1, session.getBins().size());
+
+		// Rejected boxes reach subscribers too
+		List<PackedBox> received = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch done = new CountDownLatch(1);
+		session.subscribe(new Flow.Subscriber<PackedBox>() {
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				subscription.request(Long.MAX_VALUE);
+			}
+
+			@Override
+			public void onNext(PackedBox item) {
+				received.add(item);
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				done.countDown();
+			}
+
+			@Override
+			public void onComplete() {
+				done.countDown();
+			}
+		});
+		try (SubmissionPublisher<Box> upstream = new SubmissionPublisher<>()) {
+			upstream.subscribe(session);
+			upstream.submit(new Box(3, new Point3f(0, 0, 0), new Point3f(12, 12, 12)));
+			upstream.submit(new Box(4, new Point3f(0, 0, 0), new Point3f(5, 5, 5)));
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(2, received.size());
+		assertTrue(received.get(0).isRejected());
+		assertFalse(received.get(1).isRejected());
+	}
+
+	@Test
+	void testStreamPublishesEveryPlacement() throws InterruptedException {
+		OnlinePackingSession session = new OnlinePackingSession(
+				new SolverProperties(new Bin(0, 10, 10, 10), false, "x", List.of(0, 1, 2)), 4, 2);
+
+		List<PackedBox> received = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch done = new CountDownLatch(1);
+		session.subscribe(new Flow.Subscriber<PackedBox>() {
+			private Flow.Subscription subscription;
+
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				this.subscription = subscription;
+				subscription.request(1);
+			}
+
+			@Override
+			public void onNext(PackedBox item) {
+				received.add(item);
+				subscription.request(1);
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				done.countDown();
+			}
+
+			@Override
+			public void onComplete() {
+				done.countDown();
+			}
+		});
+
+		try (SubmissionPublisher<Box> upstream = new SubmissionPublisher<>()) {
+			upstream.subscribe(session);
+			for (int i = 0; i < 50; i++) {
+				upstream.submit(new Box(i, new Point3f(0, 0, 0), new Point3f(5, 5, 5)));
+			}
+		}
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(50, received.size());
+
+		List<List<Box>> bins = session.getBins();
+		// eight 5x5x5 boxes fill a 10x10x10 bin
+		assertEquals(7, bins.size());
+		assertEquals(8, bins.get(0).size());
+	}
+}